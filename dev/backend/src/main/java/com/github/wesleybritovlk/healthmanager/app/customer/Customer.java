@@ -2,26 +2,30 @@ package com.github.wesleybritovlk.healthmanager.app.customer;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.math.BigInteger;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.Set;
 import java.util.UUID;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.validator.constraints.Length;
 
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblem;
+import com.github.wesleybritovlk.healthmanager.common.CommonUuid;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -35,12 +39,13 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor(access = AccessLevel.PROTECTED)
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Entity(name = "customer")
+@Table(indexes = @Index(name = "customer_severity_sum_idx", columnList = "severity_sum desc, id"))
 public class Customer implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @CommonUuid
     private UUID id;
 
     @Column(nullable = false)
@@ -54,9 +59,29 @@ public class Customer implements Serializable {
     @Column(nullable = false, length = 14)
     private Sex sex;
 
+    @BatchSize(size = 100)
     @OneToMany(mappedBy = "customer", cascade = CascadeType.ALL, orphanRemoval = false)
     private Set<HealthProblem> healthProblems;
 
+    /**
+     * Materialized sum of the health problems severities, kept in sync by
+     * {@link CustomerRepository#addSeveritySum(UUID, long)} and rebuilt by
+     * {@link CustomerRepository#reconcileSeveritySum()}
+     */
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private BigInteger severitySum = BigInteger.ZERO;
+
+    /**
+     * Bumped by every write that changes the customer response, its health
+     * problems included, and sent as the ETag of the customer, only the
+     * repository update queries write it
+     */
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private long version;
+
     @CreationTimestamp
     private ZonedDateTime createdAt;
 
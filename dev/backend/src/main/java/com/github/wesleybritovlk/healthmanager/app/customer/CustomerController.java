@@ -2,15 +2,19 @@ package com.github.wesleybritovlk.healthmanager.app.customer;
 
 import static com.github.wesleybritovlk.healthmanager.common.CommonResource.toResource;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,13 +22,27 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ImportReport;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ImportRow;
 import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.Request;
 import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.Response;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.RiskResponse;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ScoreDistribution;
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO;
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemService;
+import com.github.wesleybritovlk.healthmanager.common.CommonCache;
 import com.github.wesleybritovlk.healthmanager.common.CommonController;
+import com.github.wesleybritovlk.healthmanager.common.CommonCursor;
+import com.github.wesleybritovlk.healthmanager.common.CommonJson;
 import com.github.wesleybritovlk.healthmanager.handler.GlobalHandlerDTO;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -54,12 +72,73 @@ public interface CustomerController extends CommonController<Request, Response>
             @StringToClassMapItem(key = "content", value = Response.class)
     })))
     @ApiResponse(responseCode = "404", description = "Customer not found, please check the id", content = @Content(schema = @Schema(ref = "GlobalHandlerResponse", implementation = GlobalHandlerDTO.class)))
-    ResponseEntity<Map<Object, Object>> getById(UUID id);
+    @ApiResponse(responseCode = "304", description = "Not modified since the 'If-None-Match' ETag", content = @Content)
+    ResponseEntity<byte[]> getById(UUID id, String acceptEncoding, WebRequest request);
 
     @Operation(summary = "Returns all paginated customers")
     @Parameter(in = ParameterIn.QUERY, name = "page", description = "Query to set current page number", required = false, schema = @Schema(type = "integer", example = "0"))
     @Parameter(in = ParameterIn.QUERY, name = "size", description = "Query to limit customers", required = false, schema = @Schema(type = "integer", example = "10"))
-    ResponseEntity<Page<Response>> getAll(Integer pageNumber, Integer pageSize);
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(type = "object", properties = {
+            @StringToClassMapItem(key = "content", value = List.class),
+            @StringToClassMapItem(key = "totalElements", value = Long.class),
+            @StringToClassMapItem(key = "totalPages", value = Integer.class)
+    })))
+    @ApiResponse(responseCode = "304", description = "Not modified since the 'If-None-Match' ETag", content = @Content)
+    ResponseEntity<byte[]> getAll(Integer pageNumber, Integer pageSize, String acceptEncoding, WebRequest request);
+
+    @Operation(summary = "Returns all customers after a cursor, send an empty 'after' for the first slice")
+    @Parameter(in = ParameterIn.QUERY, name = "after", description = "Query to set the cursor returned as 'next' by the previous slice", required = true, schema = @Schema(type = "string"))
+    @Parameter(in = ParameterIn.QUERY, name = "size", description = "Query to limit customers", required = false, schema = @Schema(type = "integer", example = "10"))
+    @ApiResponse(responseCode = "400", description = "Invalid cursor, please check the 'after' query", content = @Content(schema = @Schema(ref = "GlobalHandlerResponse", implementation = GlobalHandlerDTO.class)))
+    ResponseEntity<CommonCursor.Slice<Response>> getAllAfter(String after, Integer pageSize);
+
+    @Operation(summary = "Returns the customers with the highest health risk")
+    @Parameter(in = ParameterIn.QUERY, name = "k", description = "Query to limit customers, from 1 to 100", required = false, schema = @Schema(type = "integer", example = "10"))
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(type = "object", properties = {
+            @StringToClassMapItem(key = "content", value = List.class)
+    })))
+    @ApiResponse(responseCode = "400", description = "Query 'k' must be between 1 and 100", content = @Content(schema = @Schema(ref = "GlobalHandlerResponse", implementation = GlobalHandlerDTO.class)))
+    ResponseEntity<Map<Object, Object>> getTopRisk(Integer k);
+
+    @Operation(summary = "Returns how many customers there are per risk score and per sex")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(type = "object", properties = {
+            @StringToClassMapItem(key = "content", value = ScoreDistribution.class)
+    })))
+    ResponseEntity<Map<Object, Object>> getScoreDistribution();
+
+    @Operation(summary = "Search paginated customers by a piece of the name, best matches first")
+    @Parameter(in = ParameterIn.QUERY, name = "name", description = "Query to match anywhere in the customer name, ignoring case", required = true, schema = @Schema(type = "string", example = "foo"))
+    @Parameter(in = ParameterIn.QUERY, name = "page", description = "Query to set current page number", required = false, schema = @Schema(type = "integer", example = "0"))
+    @Parameter(in = ParameterIn.QUERY, name = "size", description = "Query to limit customers", required = false, schema = @Schema(type = "integer", example = "10"))
+    @ApiResponse(responseCode = "400", description = "Query 'name' shouldn't be blank", content = @Content(schema = @Schema(ref = "GlobalHandlerResponse", implementation = GlobalHandlerDTO.class)))
+    ResponseEntity<Page<Response>> search(String name, Integer pageNumber, Integer pageSize);
+
+    @Operation(summary = "Export all customers with their score as newline-delimited JSON, one customer per line")
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = Response.class)))
+    ResponseEntity<StreamingResponseBody> export();
+
+    @Operation(summary = "Import customers with their health problems from NDJSON or CSV, one customer per line")
+    @ApiResponse(responseCode = "200", description = "Customers import finished!", content = @Content(schema = @Schema(type = "object", properties = {
+            @StringToClassMapItem(key = "message", value = String.class),
+            @StringToClassMapItem(key = "content", value = ImportReport.class)
+    })))
+    @ApiResponse(responseCode = "415", description = "Import accepts only 'application/x-ndjson' or 'text/csv'", content = @Content(schema = @Schema(ref = "GlobalHandlerResponse", implementation = GlobalHandlerDTO.class)))
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+            @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = ImportRow.class)),
+            @Content(mediaType = "text/csv", schema = @Schema(type = "string", example = "full_name,date_birth,sex,health_problems\nfoo,1999-12-01,MALE,asthma:1;diabetes:2"))
+    })
+    ResponseEntity<Map<Object, Object>> importAll(InputStream body, MediaType contentType);
+
+    @Operation(summary = "Add a batch of health problems to the customer")
+    @Parameter(in = ParameterIn.PATH, name = "id", description = "Path to find customer by id", required = true, schema = @Schema(type = "string", format = "uuid", example = "customer uuid"))
+    @ApiResponse(responseCode = "201", description = "Health problems created successfully!", content = @Content(schema = @Schema(type = "object", properties = {
+            @StringToClassMapItem(key = "message", value = String.class),
+            @StringToClassMapItem(key = "content", value = List.class)
+    })))
+    @ApiResponse(responseCode = "404", description = "Customer not found, please check the id", content = @Content(schema = @Schema(ref = "GlobalHandlerResponse", implementation = GlobalHandlerDTO.class)))
+    @ApiResponse(responseCode = "409", description = "This Health Problem already exists in this Customer", content = @Content(schema = @Schema(ref = "GlobalHandlerResponse", implementation = GlobalHandlerDTO.class)))
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(content = @Content(schema = @Schema(ref = "HealthProblemBatchRequest", implementation = HealthProblemDTO.BatchRequest.class)))
+    ResponseEntity<Map<Object, Object>> createHealthProblems(UUID id, HealthProblemDTO.BatchRequest request);
 
     @Operation(summary = "Put customer by id")
     @Parameter(in = ParameterIn.PATH, name = "id", description = "Path to find and update customer by id", required = true, schema = @Schema(type = "string", format = "uuid", example = "customer uuid"))
@@ -86,10 +165,13 @@ public interface CustomerController extends CommonController<Request, Response>
 @RequiredArgsConstructor
 class CustomerControllerImpl implements CustomerController {
     private final CustomerService service;
+    private final CustomerImportService importService;
+    private final HealthProblemService healthProblemService;
+    private final ObjectMapper objectMapper;
+    private final CommonCache cache;
 
     @Override
     @PostMapping
-    @CacheEvict(value = { "customer", "customers" }, allEntries = true)
     public ResponseEntity<Map<Object, Object>> create(@Valid @RequestBody Request request) {
         var response = service.create(request);
         var resource = toResource("Customer created successfully!", response);
@@ -98,26 +180,105 @@ class CustomerControllerImpl implements CustomerController {
 
     @Override
     @GetMapping("{id}")
-    @Cacheable(value = "customer")
-    public ResponseEntity<Map<Object, Object>> getById(@PathVariable UUID id) {
-        var response = service.findById(id);
-        return ResponseEntity.ok(toResource(response));
+    public ResponseEntity<byte[]> getById(@PathVariable UUID id,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        long version = service.findVersion(id);
+        String etag = CommonJson.etag(version, acceptEncoding);
+        if (request.checkNotModified(etag))
+            return null;
+        var body = cache.json(CommonCache.CUSTOMER, id + ":" + version, () -> toResource(service.findById(id)));
+        return body.toResponse(acceptEncoding, etag);
     }
 
     @Override
     @GetMapping
-    @Cacheable(value = "customers")
-    public ResponseEntity<Page<Response>> getAll(
+    public ResponseEntity<byte[]> getAll(
+            @RequestParam(name = "page", required = false) Integer pageNumber,
+            @RequestParam(name = "size", required = false) Integer pageSize,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        String etag = CommonJson.etag(cache.version(CommonCache.CUSTOMERS), acceptEncoding);
+        if (request.checkNotModified(etag))
+            return null;
+        Pageable pageable = PageRequest.of(pageNumber != null ? pageNumber : 0, pageSize != null ? pageSize : 10);
+        var body = cache.listingJson(CommonCache.CUSTOMERS, pageable.getPageNumber() + ":" + pageable.getPageSize(),
+                () -> service.findAll(pageable));
+        return body.toResponse(acceptEncoding, etag);
+    }
+
+    @Override
+    @GetMapping(params = "after")
+    public ResponseEntity<CommonCursor.Slice<Response>> getAllAfter(
+            @RequestParam(name = "after") String after,
+            @RequestParam(name = "size", required = false) Integer pageSize) {
+        var response = service.findAllAfter(CommonCursor.decode(after), pageSize != null ? pageSize : 10);
+        return ResponseEntity.ok(response);
+    }
+
+    @Override
+    @GetMapping("top-risk")
+    public ResponseEntity<Map<Object, Object>> getTopRisk(@RequestParam(name = "k", required = false) Integer k) {
+        List<RiskResponse> response = service.findTopRisk(k != null ? k : 10);
+        return ResponseEntity.ok(toResource(response));
+    }
+
+    @Override
+    @GetMapping("score-distribution")
+    public ResponseEntity<Map<Object, Object>> getScoreDistribution() {
+        ScoreDistribution response = service.findScoreDistribution();
+        return ResponseEntity.ok(toResource(response));
+    }
+
+    @Override
+    @GetMapping("search")
+    public ResponseEntity<Page<Response>> search(
+            @RequestParam(name = "name") String name,
             @RequestParam(name = "page", required = false) Integer pageNumber,
             @RequestParam(name = "size", required = false) Integer pageSize) {
         Pageable pageable = PageRequest.of(pageNumber != null ? pageNumber : 0, pageSize != null ? pageSize : 10);
-        Page<Response> response = service.findAll(pageable);
+        Page<Response> response = service.search(name, pageable);
         return ResponseEntity.ok(response);
     }
 
+    @Override
+    @GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        StreamingResponseBody body = output -> {
+            var writer = objectMapper.writerFor(Response.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            service.export(response -> {
+                try {
+                    writer.writeValue(output, response);
+                    output.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            output.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @Override
+    @PostMapping(value = "import", consumes = { MediaType.APPLICATION_NDJSON_VALUE, "text/csv" })
+    public ResponseEntity<Map<Object, Object>> importAll(InputStream body,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) {
+        ImportReport response = importService.importAll(body, contentType);
+        var resource = toResource("Customers import finished!", response);
+        return ResponseEntity.ok(resource);
+    }
+
+    @Override
+    @PostMapping("{id}/health-problems:batch")
+    public ResponseEntity<Map<Object, Object>> createHealthProblems(@PathVariable UUID id,
+            @Valid @RequestBody HealthProblemDTO.BatchRequest request) {
+        var response = healthProblemService.createAll(id, request);
+        var resource = toResource("Health problems created successfully!", response);
+        return ResponseEntity.status(HttpStatus.CREATED).body(resource);
+    }
+
     @Override
     @PutMapping("{id}")
-    @CacheEvict(value = { "customer", "customers" }, allEntries = true)
     public ResponseEntity<Map<Object, Object>> update(@PathVariable UUID id, @Valid @RequestBody Request request) {
         var response = service.update(id, request);
         var resource = toResource("Customer updated successfully!", response);
@@ -126,7 +287,6 @@ class CustomerControllerImpl implements CustomerController {
 
     @Override
     @DeleteMapping("{id}")
-    @CacheEvict(value = { "customer", "customers", "health-problem", "health-problems" }, allEntries = true)
     public ResponseEntity<Map<Object, Object>> delete(@PathVariable UUID id) {
         var response = service.delete(id);
         var resource = toResource("Customer deleted successfully!", response);
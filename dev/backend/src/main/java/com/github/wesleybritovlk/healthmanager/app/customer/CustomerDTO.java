@@ -1,10 +1,14 @@
 package com.github.wesleybritovlk.healthmanager.app.customer;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
+import org.hibernate.validator.constraints.Range;
 import org.springframework.validation.annotation.Validated;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -12,6 +16,8 @@ import com.github.wesleybritovlk.healthmanager.app.customer.Customer.Sex;
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.AccessLevel;
@@ -31,6 +37,44 @@ public class CustomerDTO {
                                         "Enum Check: 'NOT_KNOW', 'MALE', 'FEMALE' or 'NOT_APPLICABLE'") Sex sex) {
         }
 
+        @Validated
+        @Schema(name = "CustomerImportRow", title = "CustomerImportRow")
+        public static record ImportRow(
+                        @JsonProperty("full_name") @NotNull(message = "Name shouldn't be null") @Size(min = 3, max = 50, message = "Name must be greater than 3 and up to 50 characters") String name,
+
+                        @JsonProperty("date_birth") @NotNull(message = "Invalid or null date of birth. " +
+                                        "Format: 'yyyy-MM-dd'") LocalDate dateBirth,
+
+                        @NotNull(message = "Invalid or null sex. " +
+                                        "Enum Check: 'NOT_KNOW', 'MALE', 'FEMALE' or 'NOT_APPLICABLE'") Sex sex,
+
+                        @JsonProperty("health_problems") List<@Valid ImportProblem> healthProblems) {
+        }
+
+        @Validated
+        @Schema(name = "CustomerImportProblem", title = "CustomerImportProblem")
+        public static record ImportProblem(
+                        @JsonProperty("problem_name") @NotBlank(message = "Problem name shouldn't be null") @Size(min = 3, max = 50, message = "Problem name must be greater than 3 and up to 50 characters") String hpName,
+
+                        @NotNull(message = "Invalid or null severity. " +
+                                        "Severity Check: '1' or '2'") @Range(min = 1, max = 2, message = "Invalid or null severity. " +
+                                                        "Severity Check: '1' or '2'") BigInteger severity) {
+        }
+
+        @Schema(name = "CustomerImportError", title = "CustomerImportError")
+        public static record ImportError(
+                        long line,
+                        String message) {
+        }
+
+        @Schema(name = "CustomerImportReport", title = "CustomerImportReport")
+        public static record ImportReport(
+                        long imported,
+                        long failed,
+                        List<ImportError> errors,
+                        boolean truncated) {
+        }
+
         @Schema(name = "CustomerResponse", title = "CustomerResponse")
         public static record Response(
                         UUID id,
@@ -40,4 +84,24 @@ public class CustomerDTO {
                         BigDecimal score,
                         Set<HealthProblemDTO.Response> health_problems) {
         }
+
+        @Schema(name = "CustomerRiskResponse", title = "CustomerRiskResponse")
+        public static record RiskResponse(
+                        UUID id,
+                        String full_name,
+                        BigDecimal score) {
+        }
+
+        @Schema(name = "CustomerScoreBucket", title = "CustomerScoreBucket")
+        public static record ScoreBucket(
+                        BigInteger severity_sum,
+                        BigDecimal score,
+                        long customers) {
+        }
+
+        @Schema(name = "CustomerScoreDistribution", title = "CustomerScoreDistribution")
+        public static record ScoreDistribution(
+                        List<ScoreBucket> scores,
+                        Map<Sex, Long> sex) {
+        }
 }
@@ -0,0 +1,269 @@
+package com.github.wesleybritovlk.healthmanager.app.customer;
+
+import static com.github.wesleybritovlk.healthmanager.common.CommonTransaction.afterCommit;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.core.NestedRuntimeException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ImportError;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ImportProblem;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ImportReport;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ImportRow;
+import com.github.wesleybritovlk.healthmanager.common.CommonCache;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Loads customers with their health problems from NDJSON or CSV, read one
+ * line at a time and written in chunks of {@value #CHUNK_SIZE} rows per
+ * transaction, a failed chunk is retried row by row so only the bad rows are
+ * reported. Every failed row is counted but only the first
+ * {@value #MAX_ERRORS} are listed in the report
+ */
+public interface CustomerImportService {
+    int CHUNK_SIZE = 500;
+
+    int MAX_ERRORS = 1_000;
+
+    MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+
+    /**
+     * CSV needs a header with the 'full_name', 'date_birth' and 'sex' columns and
+     * an optional 'health_problems' column written as 'name:severity;...'
+     */
+    ImportReport importAll(InputStream input, MediaType contentType);
+}
+
+@Service
+@RequiredArgsConstructor
+class CustomerImportServiceImpl implements CustomerImportService {
+    private final CustomerRepository repository;
+    private final CustomerMapper mapper;
+    private final CustomerRiskBoard riskBoard;
+    private final CustomerNameIndex nameIndex;
+    private final CommonCache cache;
+    private final TransactionTemplate transaction;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+
+    private record Line(long number, ImportRow row) {
+    }
+
+    private static class Report {
+        private long imported;
+        private long failed;
+        private final List<ImportError> errors = new ArrayList<>();
+
+        void fail(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_ERRORS)
+                errors.add(new ImportError(line, message));
+        }
+
+        ImportReport toReport() {
+            return new ImportReport(imported, failed, errors, failed > errors.size());
+        }
+    }
+
+    @Override
+    public ImportReport importAll(InputStream input, MediaType contentType) {
+        boolean csv = TEXT_CSV.isCompatibleWith(contentType);
+        if (!csv && !MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType))
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                    "Import accepts only 'application/x-ndjson' or 'text/csv'");
+        var report = new Report();
+        var chunk = new ArrayList<Line>(CHUNK_SIZE);
+        try (var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            Map<String, Integer> header = null;
+            long number = 0;
+            for (String text = reader.readLine(); text != null; text = reader.readLine()) {
+                number++;
+                if (text.isBlank())
+                    continue;
+                if (csv && header == null) {
+                    header = parseHeader(text);
+                    continue;
+                }
+                try {
+                    ImportRow row = csv ? parseCsv(header, text) : objectMapper.readValue(text, ImportRow.class);
+                    validate(row);
+                    chunk.add(new Line(number, row));
+                } catch (IllegalArgumentException e) {
+                    report.fail(number, e.getMessage());
+                } catch (JsonProcessingException e) {
+                    report.fail(number, "Invalid JSON, " + e.getOriginalMessage());
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    write(chunk, report);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        write(chunk, report);
+        return report.toReport();
+    }
+
+    private void validate(ImportRow row) {
+        Set<ConstraintViolation<ImportRow>> violations = validator.validate(row);
+        if (!violations.isEmpty())
+            throw new IllegalArgumentException(violations.stream().map(ConstraintViolation::getMessage).sorted()
+                    .collect(Collectors.joining("; ")));
+        if (row.healthProblems() == null)
+            return;
+        Set<String> names = new HashSet<>();
+        for (ImportProblem problem : row.healthProblems())
+            if (!names.add(problem.hpName()))
+                throw new IllegalArgumentException("This Health Problem already exists in this Customer");
+    }
+
+    private void write(List<Line> chunk, Report report) {
+        if (chunk.isEmpty())
+            return;
+        try {
+            save(chunk);
+            report.imported += chunk.size();
+        } catch (DataAccessException | TransactionException | ConstraintViolationException e) {
+            for (Line line : chunk)
+                try {
+                    save(List.of(line));
+                    report.imported++;
+                } catch (DataAccessException | TransactionException | ConstraintViolationException rowError) {
+                    report.fail(line.number(), messageOf(rowError));
+                }
+        }
+    }
+
+    private static String messageOf(RuntimeException e) {
+        Throwable cause = e instanceof NestedRuntimeException nested ? nested.getMostSpecificCause() : e;
+        return Objects.requireNonNullElse(cause.getMessage(), "Customer couldn't be saved");
+    }
+
+    private void save(List<Line> lines) {
+        transaction.executeWithoutResult(status -> {
+            List<Customer> customers = lines.stream().map(line -> mapper.toModel(line.row())).toList();
+            repository.saveAll(customers);
+            repository.flush();
+            afterCommit(() -> customers.forEach(customer -> {
+                riskBoard.put(customer.getId(), customer.getName(), customer.getSeveritySum());
+                nameIndex.put(customer.getId(), customer.getName());
+            }));
+            cache.refresh(CommonCache.CUSTOMER_VIEWS, customers.stream().map(Customer::getId).toList());
+            cache.bump(CommonCache.CUSTOMERS);
+            if (customers.stream().anyMatch(customer -> !customer.getHealthProblems().isEmpty()))
+                cache.bump(CommonCache.HEALTH_PROBLEMS);
+        });
+    }
+
+    private static Map<String, Integer> parseHeader(String text) {
+        List<String> columns = splitCsv(text);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++)
+            header.put(columns.get(i).trim().toLowerCase(Locale.ROOT), i);
+        if (!header.keySet().containsAll(List.of("full_name", "date_birth", "sex")))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "CSV header must have the 'full_name', 'date_birth' and 'sex' columns");
+        return header;
+    }
+
+    private static ImportRow parseCsv(Map<String, Integer> header, String text) {
+        List<String> fields = splitCsv(text);
+        String name = field(header, fields, "full_name");
+        String dateBirth = field(header, fields, "date_birth");
+        String sex = field(header, fields, "sex");
+        String problems = field(header, fields, "health_problems");
+        return new ImportRow(name, parseDate(dateBirth), parseSex(sex), parseProblems(problems));
+    }
+
+    private static LocalDate parseDate(String dateBirth) {
+        try {
+            return dateBirth != null ? LocalDate.parse(dateBirth) : null;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid or null date of birth. Format: 'yyyy-MM-dd'");
+        }
+    }
+
+    private static Customer.Sex parseSex(String sex) {
+        try {
+            return sex != null ? Customer.Sex.valueOf(sex) : null;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid or null sex. " +
+                    "Enum Check: 'NOT_KNOW', 'MALE', 'FEMALE' or 'NOT_APPLICABLE'");
+        }
+    }
+
+    private static List<ImportProblem> parseProblems(String problems) {
+        if (problems == null)
+            return List.of();
+        return Arrays.stream(problems.split(";")).filter(problem -> !problem.isBlank()).map(problem -> {
+            int at = problem.lastIndexOf(':');
+            try {
+                return new ImportProblem(problem.substring(0, at).trim(),
+                        new BigInteger(problem.substring(at + 1).trim()));
+            } catch (IndexOutOfBoundsException | NumberFormatException e) {
+                throw new IllegalArgumentException("Health problems must be written as 'name:severity;...'");
+            }
+        }).toList();
+    }
+
+    private static String field(Map<String, Integer> header, List<String> fields, String column) {
+        Integer index = header.get(column);
+        if (index == null || index >= fields.size() || fields.get(index).isBlank())
+            return null;
+        return fields.get(index).trim();
+    }
+
+    /** Splits one RFC 4180 record, quoted fields may hold commas and doubled quotes */
+    static List<String> splitCsv(String text) {
+        List<String> fields = new ArrayList<>();
+        var field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted && c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                field.append('"');
+                i++;
+            } else if (c == '"')
+                quoted = !quoted;
+            else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else
+                field.append(c);
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
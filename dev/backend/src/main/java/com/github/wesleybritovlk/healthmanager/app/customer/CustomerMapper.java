@@ -2,10 +2,11 @@ package com.github.wesleybritovlk.healthmanager.app.customer;
 
 import static java.util.Comparator.comparing;
 
-import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -14,23 +15,32 @@ import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Component;
 
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ImportProblem;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ImportRow;
 import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.Request;
 import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.Response;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.RiskResponse;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ScoreBucket;
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblem;
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO;
-import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemMapper;
 import com.github.wesleybritovlk.healthmanager.common.CommonMapper;
 
 import lombok.RequiredArgsConstructor;
 
 public interface CustomerMapper extends CommonMapper<Customer, Request, Response> {
-    Response toResponse(Customer model, BigInteger severitySum);
+    Response toResponse(CustomerRepository.Row row, Collection<HealthProblemDTO.Response> healthProblems);
+
+    RiskResponse toRiskResponse(CustomerRiskBoard.Entry entry);
+
+    ScoreBucket toScoreBucket(CustomerRepository.SeverityCount count);
+
+    Customer toModel(ImportRow row);
 
     @Override
     @Deprecated
     /**
      * Unimplemented method, use
-     * {@link CustomerMapper#toResponse(Customer)}
+     * {@link CustomerMapper#toResponse(CustomerRepository.Row, Collection)}
      * 
      * @deprecated
      */
@@ -42,7 +52,7 @@ public interface CustomerMapper extends CommonMapper<Customer, Request, Response
 @Component
 @RequiredArgsConstructor
 class CustomerMapperImpl implements CustomerMapper {
-    private final HealthProblemMapper healthProblemMapper;
+    private final CustomerScore score;
 
     @Override
     public Customer toModel(Request request) {
@@ -52,32 +62,47 @@ class CustomerMapperImpl implements CustomerMapper {
     }
 
     @Override
-    public Customer toModel(Customer model, Request request) {
-        return Customer.builder().id(model.getId()).name(request.name()).dateBirth(request.dateBirth())
-                .sex(request.sex()).healthProblems(model.getHealthProblems()).createdAt(model.getCreatedAt()).build();
+    public Customer toModel(ImportRow row) {
+        Set<HealthProblem> healthProblems = new HashSet<>();
+        List<ImportProblem> problems = row.healthProblems() != null ? row.healthProblems() : List.of();
+        BigInteger severitySum = problems.stream().map(ImportProblem::severity).reduce(BigInteger.ZERO,
+                BigInteger::add);
+        Customer customer = Customer.builder().name(row.name()).dateBirth(row.dateBirth()).sex(row.sex())
+                .healthProblems(healthProblems).severitySum(severitySum).build();
+        problems.forEach(problem -> healthProblems.add(HealthProblem.builder().customer(customer)
+                .hpName(problem.hpName()).severity(problem.severity()).build()));
+        return customer;
     }
 
-    private BigDecimal getSeverityScore(BigInteger severitySum, RoundingMode roundingMode) {
-        if (severitySum.intValue() == 0)
-            return BigDecimal.ZERO.setScale(2);
-        double exp = -2.8 + severitySum.intValue(), euler = Math.E, pow = Math.pow(euler, -exp);
-        BigDecimal scalePow = BigDecimal.valueOf(pow).setScale(6, roundingMode), one = BigDecimal.ONE,
-                sum = one.add(scalePow), hundred = BigDecimal.valueOf(100), divide = one.divide(sum, 4, roundingMode);
-        return hundred.multiply(divide).setScale(2, roundingMode);
+    @Override
+    public Customer toModel(Customer model, Request request) {
+        return Customer.builder().id(model.getId()).name(request.name()).dateBirth(request.dateBirth())
+                .sex(request.sex()).healthProblems(model.getHealthProblems()).severitySum(model.getSeveritySum())
+                .version(model.getVersion()).createdAt(model.getCreatedAt()).build();
     }
 
-    private Set<HealthProblemDTO.Response> getHealthProblemsToResponse(Set<HealthProblem> healthProblems) {
+    private Set<HealthProblemDTO.Response> sortHealthProblems(Collection<HealthProblemDTO.Response> healthProblems) {
         if (healthProblems.isEmpty())
             return Set.of();
         return healthProblems.stream()
-                .sorted((hp0, hp1) -> Integer.compare(hp1.getSeverity().intValue(), hp0.getSeverity().intValue()))
-                .map(healthProblemMapper::toResponse).collect(Collectors.toCollection(LinkedHashSet::new));
+                .sorted((hp0, hp1) -> hp1.severity().compareTo(hp0.severity()))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    @Override
+    public Response toResponse(CustomerRepository.Row row, Collection<HealthProblemDTO.Response> healthProblems) {
+        return new Response(row.id(), row.name(), row.dateBirth(), row.sex(),
+                score.of(row.severitySum()), sortHealthProblems(healthProblems));
+    }
+
+    @Override
+    public RiskResponse toRiskResponse(CustomerRiskBoard.Entry entry) {
+        return new RiskResponse(entry.id(), entry.name(), score.of(entry.severitySum()));
     }
 
     @Override
-    public Response toResponse(Customer model, BigInteger severitySum) {
-        return new Response(model.getId(), model.getName(), model.getDateBirth(), model.getSex(),
-                getSeverityScore(severitySum, RoundingMode.HALF_UP), getHealthProblemsToResponse(model.getHealthProblems()));
+    public ScoreBucket toScoreBucket(CustomerRepository.SeverityCount count) {
+        return new ScoreBucket(count.severitySum(), score.of(count.severitySum()), count.customers());
     }
 
     @Override
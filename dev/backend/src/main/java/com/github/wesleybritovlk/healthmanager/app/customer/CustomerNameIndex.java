@@ -0,0 +1,147 @@
+package com.github.wesleybritovlk.healthmanager.app.customer;
+
+import static java.util.Comparator.comparingInt;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * In-memory trigram index over the lower-cased customer names, answers
+ * substring searches without scanning the customer table
+ */
+public interface CustomerNameIndex {
+    int GRAM = 3;
+
+    void put(UUID id, String name);
+
+    void remove(UUID id);
+
+    /**
+     * Ids of the customers whose name contains the query, ignoring case, ranked
+     * by exact, prefix, prefix of a word after a space and then any other
+     * match, shorter names first. Normalized queries shorter than
+     * {@link #GRAM} can't be answered by the index
+     */
+    List<UUID> search(String query);
+
+    static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    void reload();
+
+    /** Re-reads the given customers, the ones no longer stored are removed */
+    void reload(Collection<UUID> ids);
+
+    record Entry(UUID id, String name) {
+    }
+}
+
+@Component
+@RequiredArgsConstructor
+class CustomerNameIndexImpl implements CustomerNameIndex {
+    private final CustomerRepository repository;
+    private final Map<UUID, String> names = new ConcurrentHashMap<>();
+    private final Map<String, Set<UUID>> postings = new ConcurrentHashMap<>();
+
+    static Set<String> grams(String normalized) {
+        return IntStream.rangeClosed(0, normalized.length() - GRAM)
+                .mapToObj(i -> normalized.substring(i, i + GRAM)).collect(Collectors.toSet());
+    }
+
+    private static int rank(String name, String query) {
+        if (name.equals(query))
+            return 0;
+        if (name.startsWith(query))
+            return 1;
+        return name.contains(" " + query) ? 2 : 3;
+    }
+
+    private void link(UUID id, String normalized) {
+        grams(normalized).forEach(gram -> postings.compute(gram, (key, ids) -> {
+            Set<UUID> next = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            next.add(id);
+            return next;
+        }));
+    }
+
+    private void unlink(UUID id, String normalized) {
+        grams(normalized).forEach(gram -> postings.computeIfPresent(gram, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        }));
+    }
+
+    @Override
+    public void put(UUID id, String name) {
+        String normalized = CustomerNameIndex.normalize(name);
+        names.compute(id, (key, old) -> {
+            if (old != null)
+                unlink(id, old);
+            link(id, normalized);
+            return normalized;
+        });
+    }
+
+    @Override
+    public void remove(UUID id) {
+        names.computeIfPresent(id, (key, old) -> {
+            unlink(id, old);
+            return null;
+        });
+    }
+
+    @Override
+    public List<UUID> search(String query) {
+        String normalized = CustomerNameIndex.normalize(query);
+        if (normalized.length() < GRAM)
+            throw new IllegalArgumentException("Query must have at least " + GRAM + " characters");
+        List<Set<UUID>> candidates = grams(normalized).stream()
+                .map(gram -> postings.getOrDefault(gram, Set.of()))
+                .sorted(comparingInt(Set::size)).toList();
+        Comparator<Map.Entry<UUID, String>> ranking = Comparator
+                .<Map.Entry<UUID, String>>comparingInt(entry -> rank(entry.getValue(), normalized))
+                .thenComparingInt(entry -> entry.getValue().length())
+                .thenComparing(Map.Entry::getValue).thenComparing(entry -> entry.getKey().toString());
+        return candidates.get(0).stream()
+                .filter(id -> candidates.stream().skip(1).allMatch(ids -> ids.contains(id)))
+                .map(id -> Map.entry(id, names.getOrDefault(id, "")))
+                .filter(entry -> entry.getValue().contains(normalized))
+                .sorted(ranking).map(Map.Entry::getKey).toList();
+    }
+
+    @Override
+    @EventListener(ApplicationStartedEvent.class)
+    public void reload() {
+        List<Entry> loaded = repository.findAllNameEntries();
+        Set<UUID> ids = loaded.stream().map(Entry::id).collect(Collectors.toSet());
+        loaded.forEach(entry -> put(entry.id(), entry.name()));
+        names.keySet().stream().filter(id -> !ids.contains(id)).toList().forEach(this::remove);
+    }
+
+    @Override
+    public void reload(Collection<UUID> ids) {
+        Map<UUID, String> loaded = repository.findAllNameEntriesByIdIn(ids).stream()
+                .collect(Collectors.toMap(Entry::id, Entry::name));
+        ids.forEach(id -> {
+            if (loaded.containsKey(id))
+                put(id, loaded.get(id));
+            else
+                remove(id);
+        });
+    }
+}
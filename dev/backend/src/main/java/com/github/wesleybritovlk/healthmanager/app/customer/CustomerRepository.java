@@ -1,21 +1,117 @@
 package com.github.wesleybritovlk.healthmanager.app.customer;
 
 import java.math.BigInteger;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, UUID> {
+        String ROW = "select new com.github.wesleybritovlk.healthmanager.app.customer.CustomerRepository$Row(" +
+                        "c.id, c.name, c.dateBirth, c.sex, c.severitySum) from customer c ";
+        String FETCH_SIZE = "500";
+
+        /**
+         * Customers whose name contains the query, its {@code %}, {@code _} and
+         * {@code \} escaped by a backslash, ranked as {@link CustomerNameIndex#search}
+         */
+        @Query(value = ROW + "where lower(c.name) like lower(concat('%', ?1, '%')) escape '\\' order by " +
+                        "case when lower(c.name) like lower(?1) escape '\\' then 0 " +
+                        "when lower(c.name) like lower(concat(?1, '%')) escape '\\' then 1 " +
+                        "when lower(c.name) like lower(concat('% ', ?1, '%')) escape '\\' then 2 else 3 end, " +
+                        "length(c.name), lower(c.name), c.id",
+                        countQuery = "select count(c) from customer c " +
+                                        "where lower(c.name) like lower(concat('%', ?1, '%')) escape '\\'")
+        Page<Row> findAllRowsByNameLike(String name, Pageable pageable);
+
+        @Query(ROW + "where c.id in ?1")
+        List<Row> findAllRowsByIdIn(Collection<UUID> ids);
+
+        @Query(ROW + "where c.id = ?1")
+        Optional<Row> findRowById(UUID id);
+
+        @Query(value = ROW + "order by c.severitySum desc, c.id", countQuery = "select count(c) from customer c")
+        Page<Row> findAllRows(Pageable pageable);
+
+        @Query(ROW + "order by c.severitySum desc, c.id")
+        List<Row> findAllRows(Limit limit);
+
+        @Query(ROW + "where c.severitySum < ?1 or (c.severitySum = ?1 and c.id > ?2) " +
+                        "order by c.severitySum desc, c.id")
+        List<Row> findAllRowsAfter(BigInteger severitySum, UUID id, Limit limit);
+
+        /** Forward-only cursor over every row, fetched from the driver in blocks of {@value #FETCH_SIZE} */
+        @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE),
+                        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+        @Query(ROW + "order by c.id")
+        Stream<Row> streamAllRows();
+
+        @Query("select new com.github.wesleybritovlk.healthmanager.app.customer.CustomerNameIndex$Entry(" +
+                        "c.id, c.name) from customer c")
+        List<CustomerNameIndex.Entry> findAllNameEntries();
+
+        @Query("select new com.github.wesleybritovlk.healthmanager.app.customer.CustomerNameIndex$Entry(" +
+                        "c.id, c.name) from customer c where c.id in ?1")
+        List<CustomerNameIndex.Entry> findAllNameEntriesByIdIn(Collection<UUID> ids);
+
+        @Query("select new com.github.wesleybritovlk.healthmanager.app.customer.CustomerRiskBoard$Entry(" +
+                        "c.id, c.name, c.severitySum) from customer c")
+        List<CustomerRiskBoard.Entry> findAllRiskEntries();
+
+        @Query("select new com.github.wesleybritovlk.healthmanager.app.customer.CustomerRiskBoard$Entry(" +
+                        "c.id, c.name, c.severitySum) from customer c where c.id in ?1")
+        List<CustomerRiskBoard.Entry> findAllRiskEntriesByIdIn(Collection<UUID> ids);
+
+        @Query("select new com.github.wesleybritovlk.healthmanager.app.customer.CustomerRepository$SeverityCount(" +
+                        "c.severitySum, count(c)) from customer c group by c.severitySum order by c.severitySum")
+        List<SeverityCount> countBySeveritySum();
+
+        @Query("select new com.github.wesleybritovlk.healthmanager.app.customer.CustomerRepository$SexCount(" +
+                        "c.sex, count(c)) from customer c group by c.sex")
+        List<SexCount> countBySex();
+
+        @Modifying(flushAutomatically = true, clearAutomatically = true)
+        @Query("update customer c set c.severitySum = c.severitySum + cast(?2 as Long), c.version = c.version + 1 " +
+                        "where c.id = ?1")
+        int addSeveritySum(UUID id, long delta);
+
+        @Modifying(flushAutomatically = true, clearAutomatically = true)
+        @Query("update customer c set c.version = c.version + 1 where c.id = ?1")
+        int bumpVersion(UUID id);
+
+        @Query("select c.version from customer c where c.id = ?1")
+        Optional<Long> findVersionById(UUID id);
+
+        @Modifying(flushAutomatically = true, clearAutomatically = true)
+        @Query("update customer c set c.severitySum = (select coalesce(sum(hp.severity), 0) " +
+                        "from health_problem hp where hp.customer.id = c.id), c.version = c.version + 1 " +
+                        "where c.severitySum <> (select coalesce(sum(hp.severity), 0) " +
+                        "from health_problem hp where hp.customer.id = c.id)")
+        int reconcileSeveritySum();
+
+        /** Read projection of a customer, selected without hydrating the entity */
+        record Row(UUID id, String name, LocalDate dateBirth, Customer.Sex sex, BigInteger severitySum) {
+        }
 
-        @Query("select c from customer c where lower(c.name) " +
-                        "like lower(concat('%', ?1,'%')) order by lower(c.name)")
-        List<Customer> findAllByNameLike(String name);
+        record SeverityCount(BigInteger severitySum, Long customers) {
+        }
 
-        @Query("select coalesce(sum(hp.severity), 0) " +
-                        "from health_problem hp where hp.customer.id = ?1")
-        BigInteger findSeveritySumById(UUID id);
+        record SexCount(Customer.Sex sex, Long customers) {
+        }
 }
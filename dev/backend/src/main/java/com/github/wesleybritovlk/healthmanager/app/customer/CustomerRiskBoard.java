@@ -0,0 +1,112 @@
+package com.github.wesleybritovlk.healthmanager.app.customer;
+
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.reverseOrder;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * In-memory ranking of every customer by (severity sum desc, id), so the top
+ * risk customers are answered without a database round trip
+ */
+public interface CustomerRiskBoard {
+    void put(UUID id, String name, BigInteger severitySum);
+
+    void rename(UUID id, String name);
+
+    void add(UUID id, long delta);
+
+    void remove(UUID id);
+
+    List<Entry> top(int k);
+
+    void reload();
+
+    /** Re-reads the given customers, the ones no longer stored are removed */
+    void reload(Collection<UUID> ids);
+
+    record Entry(UUID id, String name, BigInteger severitySum) {
+    }
+}
+
+@Component
+@RequiredArgsConstructor
+class CustomerRiskBoardImpl implements CustomerRiskBoard {
+    private static final Comparator<Entry> RISK_ORDER = comparing(Entry::severitySum, reverseOrder())
+            .thenComparing(Entry::id);
+
+    private final CustomerRepository repository;
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(RISK_ORDER);
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+    private void update(UUID id, UnaryOperator<Entry> change) {
+        entries.compute(id, (key, old) -> {
+            Entry next = change.apply(old);
+            if (old != null)
+                ranking.remove(old);
+            if (next != null)
+                ranking.add(next);
+            return next;
+        });
+    }
+
+    @Override
+    public void put(UUID id, String name, BigInteger severitySum) {
+        update(id, old -> new Entry(id, name, severitySum));
+    }
+
+    @Override
+    public void rename(UUID id, String name) {
+        update(id, old -> new Entry(id, name, old != null ? old.severitySum() : BigInteger.ZERO));
+    }
+
+    @Override
+    public void add(UUID id, long delta) {
+        update(id, old -> old != null ? new Entry(id, old.name(), old.severitySum().add(BigInteger.valueOf(delta)))
+                : null);
+    }
+
+    @Override
+    public void remove(UUID id) {
+        update(id, old -> null);
+    }
+
+    @Override
+    public List<Entry> top(int k) {
+        return ranking.stream().limit(k).toList();
+    }
+
+    @Override
+    @EventListener(ApplicationStartedEvent.class)
+    public void reload() {
+        List<Entry> loaded = repository.findAllRiskEntries();
+        Set<UUID> ids = loaded.stream().map(Entry::id).collect(Collectors.toSet());
+        loaded.forEach(entry -> update(entry.id(), old -> entry));
+        entries.keySet().stream().filter(id -> !ids.contains(id)).toList().forEach(this::remove);
+    }
+
+    @Override
+    public void reload(Collection<UUID> ids) {
+        Map<UUID, Entry> loaded = repository.findAllRiskEntriesByIdIn(ids).stream()
+                .collect(Collectors.toMap(Entry::id, Function.identity()));
+        ids.forEach(id -> update(id, old -> loaded.get(id)));
+    }
+}
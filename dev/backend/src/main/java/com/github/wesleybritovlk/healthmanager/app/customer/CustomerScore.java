@@ -0,0 +1,66 @@
+package com.github.wesleybritovlk.healthmanager.app.customer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Health risk score of a severity sum: score = (1 / (1 + e^-(-2.8 + sd))) * 100
+ */
+public interface CustomerScore {
+    BigDecimal of(BigInteger severitySum);
+}
+
+/**
+ * Scores are looked up in a table of cached {@link BigDecimal} instances, one
+ * per severity sum, which grows lazily when an outlier sum shows up
+ */
+@Component
+class CustomerScoreImpl implements CustomerScore {
+    private static final int INITIAL_SIZE = 32;
+    private static final int MAX_SIZE = 4096;
+
+    private volatile BigDecimal[] scores = fill(new BigDecimal[0], INITIAL_SIZE);
+
+    static BigDecimal compute(int severitySum) {
+        if (severitySum == 0)
+            return BigDecimal.ZERO.setScale(2);
+        RoundingMode roundingMode = RoundingMode.HALF_UP;
+        double exp = -2.8 + severitySum, euler = Math.E, pow = Math.pow(euler, -exp);
+        BigDecimal scalePow = BigDecimal.valueOf(pow).setScale(6, roundingMode), one = BigDecimal.ONE,
+                sum = one.add(scalePow), hundred = BigDecimal.valueOf(100), divide = one.divide(sum, 4, roundingMode);
+        return hundred.multiply(divide).setScale(2, roundingMode);
+    }
+
+    private static BigDecimal[] fill(BigDecimal[] from, int size) {
+        BigDecimal[] table = new BigDecimal[size];
+        System.arraycopy(from, 0, table, 0, from.length);
+        for (int sum = from.length; sum < size; sum++)
+            table[sum] = compute(sum);
+        return table;
+    }
+
+    private synchronized BigDecimal[] grow(int severitySum) {
+        BigDecimal[] table = scores;
+        if (severitySum < table.length)
+            return table;
+        int size = Math.min(MAX_SIZE, Math.max(severitySum + 1, table.length * 2));
+        scores = table = fill(table, size);
+        return table;
+    }
+
+    @Override
+    public BigDecimal of(BigInteger severitySum) {
+        if (severitySum.signum() < 0 || severitySum.bitLength() > 31)
+            return compute(severitySum.intValue());
+        int sum = severitySum.intValue();
+        if (sum >= MAX_SIZE)
+            return compute(sum);
+        BigDecimal[] table = scores;
+        if (sum >= table.length)
+            table = grow(sum);
+        return table[sum];
+    }
+}
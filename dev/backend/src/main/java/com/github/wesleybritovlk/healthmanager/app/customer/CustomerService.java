@@ -1,33 +1,88 @@
 package com.github.wesleybritovlk.healthmanager.app.customer;
 
+import static com.github.wesleybritovlk.healthmanager.common.CommonTransaction.afterCommit;
+
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.Request;
 import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.Response;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.RiskResponse;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ScoreDistribution;
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblem;
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO;
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemRepository;
+import com.github.wesleybritovlk.healthmanager.common.CommonCache;
+import com.github.wesleybritovlk.healthmanager.common.CommonCursor;
 import com.github.wesleybritovlk.healthmanager.common.CommonService;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 
 public interface CustomerService extends CommonService<Customer, Request, Response> {
+    /**
+     * Version of the customer response, read from the primary key alone so a
+     * conditional GET is answered without loading the customer
+     */
+    long findVersion(UUID id);
+
+    List<RiskResponse> findTopRisk(int k);
+
+    ScoreDistribution findScoreDistribution();
+
+    Page<Response> search(String name, Pageable pageable);
+
+    /**
+     * Hands every customer to the sink in id order, rows are streamed from the
+     * database and their health problems loaded one chunk at a time
+     */
+    void export(Consumer<Response> sink);
+
+    void reconcileSeveritySum();
 }
 
 @Service
 @Transactional
 @RequiredArgsConstructor
 class CustomerServiceImpl implements CustomerService {
+    private static final int EXPORT_CHUNK_SIZE = 500;
+
     private final CustomerRepository repository;
     private final CustomerMapper mapper;
+    private final CustomerRiskBoard riskBoard;
+    private final HealthProblemRepository healthProblemRepo;
+    private final CustomerNameIndex nameIndex;
+    private final CommonCache cache;
+
+    /** Peers re-read the customers this node changed into their risk board and name index */
+    @PostConstruct
+    void subscribe() {
+        cache.onRefresh(CommonCache.CUSTOMER_VIEWS, keys -> {
+            List<UUID> ids = keys.stream().map(UUID::fromString).toList();
+            riskBoard.reload(ids);
+            nameIndex.reload(ids);
+        });
+    }
 
     private Customer findCustomer(UUID id) {
         return repository.findById(id).orElseThrow(
@@ -39,24 +94,118 @@ class CustomerServiceImpl implements CustomerService {
     public Map<Object, Object> create(Request request) {
         Customer model = mapper.toModel(request);
         Customer created = repository.saveAndFlush(model);
+        afterCommit(() -> riskBoard.put(created.getId(), created.getName(), BigInteger.ZERO));
+        afterCommit(() -> nameIndex.put(created.getId(), created.getName()));
+        cache.refresh(CommonCache.CUSTOMER_VIEWS, List.of(created.getId()));
+        cache.bump(CommonCache.CUSTOMERS);
         return mapper.toResponse(created.getId(), created.getName());
     }
 
+    private List<Response> toResponses(List<CustomerRepository.Row> rows) {
+        if (rows.isEmpty())
+            return List.of();
+        Map<UUID, List<HealthProblemDTO.Response>> healthProblems = healthProblemRepo
+                .findAllResponsesByCustomerIdIn(rows.stream().map(CustomerRepository.Row::id).toList())
+                .stream().collect(Collectors.groupingBy(HealthProblemDTO.Response::customer_id));
+        return rows.stream().map(row -> mapper.toResponse(row, healthProblems.getOrDefault(row.id(), List.of())))
+                .toList();
+    }
+
     @Override
+    @Transactional(readOnly = true)
     public Response findById(UUID id) {
-        Customer customer = findCustomer(id);
-        BigInteger severitySumById = repository.findSeveritySumById(id);
-        return mapper.toResponse(customer, severitySumById);
+        CustomerRepository.Row row = repository.findRowById(id).orElseThrow(
+                () -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Customer not found, please check the id"));
+        return toResponses(List.of(row)).get(0);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long findVersion(UUID id) {
+        return repository.findVersionById(id).orElseThrow(
+                () -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Customer not found, please check the id"));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Response> findAll(Pageable pageable) {
-        List<Response> responses = repository.findAll().stream()
-                .map(customer -> mapper.toResponse(customer, repository.findSeveritySumById(customer.getId())))
-                .sorted((res0, res1) -> res1.score().compareTo(res0.score())).toList();
-        int start = (int) pageable.getOffset();
-        int end = Math.min(start + pageable.getPageSize(), responses.size());
-        return new PageImpl<>(start > end ? List.of() : responses.subList(start, end), pageable, responses.size());
+        Page<CustomerRepository.Row> rows = repository.findAllRows(pageable);
+        return new PageImpl<>(toResponses(rows.getContent()), pageable, rows.getTotalElements());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<RiskResponse> findTopRisk(int k) {
+        if (k < 1 || k > 100)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Query 'k' must be between 1 and 100");
+        return riskBoard.top(k).stream().map(mapper::toRiskResponse).toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CommonCursor.Slice<Response> findAllAfter(CommonCursor after, int size) {
+        CommonCursor.checkSize(size);
+        Limit limit = Limit.of(size + 1);
+        List<CustomerRepository.Row> rows = after == null ? repository.findAllRows(limit)
+                : repository.findAllRowsAfter(BigInteger.valueOf(after.key()), after.id(), limit);
+        return CommonCursor.toSlice(rows, size,
+                row -> new CommonCursor(row.severitySum().longValue(), row.id()), this::toResponses);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ScoreDistribution findScoreDistribution() {
+        var scores = repository.countBySeveritySum().stream().map(mapper::toScoreBucket).toList();
+        var sex = new EnumMap<Customer.Sex, Long>(Customer.Sex.class);
+        for (Customer.Sex value : Customer.Sex.values())
+            sex.put(value, 0L);
+        repository.countBySex().forEach(count -> sex.put(count.sex(), count.customers()));
+        return new ScoreDistribution(scores, sex);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Response> search(String name, Pageable pageable) {
+        if (name == null || name.isBlank())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Query 'name' shouldn't be blank");
+        if (CustomerNameIndex.normalize(name).length() < CustomerNameIndex.GRAM) {
+            Page<CustomerRepository.Row> rows = repository.findAllRowsByNameLike(escapeLike(name), pageable);
+            return new PageImpl<>(toResponses(rows.getContent()), pageable, rows.getTotalElements());
+        }
+        List<UUID> ids = nameIndex.search(name);
+        int start = (int) Math.min(pageable.getOffset(), ids.size());
+        List<UUID> pageIds = ids.subList(start, Math.min(start + pageable.getPageSize(), ids.size()));
+        if (pageIds.isEmpty())
+            return new PageImpl<>(List.of(), pageable, ids.size());
+        Map<UUID, CustomerRepository.Row> rows = repository.findAllRowsByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(CustomerRepository.Row::id, Function.identity()));
+        List<CustomerRepository.Row> ranked = pageIds.stream().map(rows::get).filter(Objects::nonNull).toList();
+        return new PageImpl<>(toResponses(ranked), pageable, ids.size());
+    }
+
+    /** Matches the wildcards of a like pattern literally, as the index does */
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void export(Consumer<Response> sink) {
+        List<CustomerRepository.Row> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+        try (Stream<CustomerRepository.Row> rows = repository.streamAllRows()) {
+            rows.forEachOrdered(row -> {
+                chunk.add(row);
+                if (chunk.size() == EXPORT_CHUNK_SIZE) {
+                    toResponses(chunk).forEach(sink);
+                    chunk.clear();
+                }
+            });
+        }
+        toResponses(chunk).forEach(sink);
     }
 
     @Override
@@ -64,15 +213,34 @@ class CustomerServiceImpl implements CustomerService {
         Customer customer = findCustomer(id);
         Customer model = mapper.toModel(customer, request);
         String name = repository.saveAndFlush(model).getName();
+        repository.bumpVersion(id);
+        afterCommit(() -> riskBoard.rename(id, name));
+        afterCommit(() -> nameIndex.put(id, name));
+        cache.refresh(CommonCache.CUSTOMER_VIEWS, List.of(id));
+        cache.bump(CommonCache.CUSTOMERS);
         return mapper.toResponse(id, name);
     }
 
     @Override
     public Map<Object, Object> delete(UUID id) {
-        if (!repository.existsById(id))
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
-                    "Customer not found, please check the id");
-        repository.deleteById(id);
+        Customer customer = findCustomer(id);
+        List<UUID> healthProblemIds = customer.getHealthProblems().stream().map(HealthProblem::getId).toList();
+        repository.delete(customer);
+        afterCommit(() -> riskBoard.remove(id));
+        afterCommit(() -> nameIndex.remove(id));
+        cache.refresh(CommonCache.CUSTOMER_VIEWS, List.of(id));
+        cache.evict(CommonCache.HEALTH_PROBLEM, healthProblemIds);
+        cache.bump(CommonCache.CUSTOMERS);
+        if (!healthProblemIds.isEmpty())
+            cache.bump(CommonCache.HEALTH_PROBLEMS);
         return mapper.toResponse(id);
     }
+
+    @Override
+    @Scheduled(cron = "${app.customer.severity-reconcile-cron}")
+    public void reconcileSeveritySum() {
+        repository.reconcileSeveritySum();
+        afterCommit(riskBoard::reload);
+        cache.bump(CommonCache.CUSTOMERS);
+    }
 }
@@ -12,16 +12,18 @@ import org.hibernate.validator.constraints.Length;
 import org.hibernate.validator.constraints.Range;
 
 import com.github.wesleybritovlk.healthmanager.app.customer.Customer;
+import com.github.wesleybritovlk.healthmanager.common.CommonUuid;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.ForeignKey;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -35,12 +37,16 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor(access = AccessLevel.PROTECTED)
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Entity(name = "health_problem")
+@Table(indexes = @Index(name = "health_problem_severity_idx", columnList = "severity desc, id"), uniqueConstraints = @UniqueConstraint(name = HealthProblem.HP_NAME_UK, columnNames = {
+        "customer_id", "hp_name" }))
 public class HealthProblem implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
+    /** One health problem name per customer, enforced by the insert itself */
+    public static final String HP_NAME_UK = "health_problem_customer_hp_name_uk";
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @CommonUuid
     private UUID id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -2,14 +2,13 @@ package com.github.wesleybritovlk.healthmanager.app.healthproblem;
 
 import static com.github.wesleybritovlk.healthmanager.common.CommonResource.toResource;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,13 +17,18 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO.Request;
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO.Response;
+import com.github.wesleybritovlk.healthmanager.common.CommonCache;
 import com.github.wesleybritovlk.healthmanager.common.CommonController;
+import com.github.wesleybritovlk.healthmanager.common.CommonCursor;
+import com.github.wesleybritovlk.healthmanager.common.CommonJson;
 import com.github.wesleybritovlk.healthmanager.handler.GlobalHandlerDTO;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -56,12 +60,25 @@ public interface HealthProblemController extends CommonController<Request, Respo
             @StringToClassMapItem(key = "content", value = HealthProblemDTO.Response.class)
     })))
     @ApiResponse(responseCode = "404", description = "Health Problem not found, please check the id", content = @Content(schema = @Schema(ref = "GlobalHandlerResponse", implementation = GlobalHandlerDTO.class)))
-    ResponseEntity<Map<Object, Object>> getById(UUID id);
+    @ApiResponse(responseCode = "304", description = "Not modified since the 'If-None-Match' ETag", content = @Content)
+    ResponseEntity<byte[]> getById(UUID id, String acceptEncoding, WebRequest request);
 
     @Operation(summary = "Returns all paginated health problems")
     @Parameter(in = ParameterIn.QUERY, name = "page", description = "Query to set current page number", required = false, schema = @Schema(type = "integer", example = "0"))
     @Parameter(in = ParameterIn.QUERY, name = "size", description = "Query to limit health problems", required = false, schema = @Schema(type = "integer", example = "10"))
-    ResponseEntity<Page<Response>> getAll(Integer pageNumber, Integer pageSize);
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(type = "object", properties = {
+            @StringToClassMapItem(key = "content", value = List.class),
+            @StringToClassMapItem(key = "totalElements", value = Long.class),
+            @StringToClassMapItem(key = "totalPages", value = Integer.class)
+    })))
+    @ApiResponse(responseCode = "304", description = "Not modified since the 'If-None-Match' ETag", content = @Content)
+    ResponseEntity<byte[]> getAll(Integer pageNumber, Integer pageSize, String acceptEncoding, WebRequest request);
+
+    @Operation(summary = "Returns all health problems after a cursor, send an empty 'after' for the first slice")
+    @Parameter(in = ParameterIn.QUERY, name = "after", description = "Query to set the cursor returned as 'next' by the previous slice", required = true, schema = @Schema(type = "string"))
+    @Parameter(in = ParameterIn.QUERY, name = "size", description = "Query to limit health problems", required = false, schema = @Schema(type = "integer", example = "10"))
+    @ApiResponse(responseCode = "400", description = "Invalid cursor, please check the 'after' query", content = @Content(schema = @Schema(ref = "GlobalHandlerResponse", implementation = GlobalHandlerDTO.class)))
+    ResponseEntity<CommonCursor.Slice<Response>> getAllAfter(String after, Integer pageSize);
 
     @Operation(summary = "Put health problem by id")
     @Parameter(in = ParameterIn.PATH, name = "id", description = "Path to find and update health problem by id", required = true, schema = @Schema(type = "string", format = "uuid", example = "health problem uuid"))
@@ -90,10 +107,10 @@ public interface HealthProblemController extends CommonController<Request, Respo
 @RequiredArgsConstructor
 class HealthProblemControllerImpl implements HealthProblemController {
     private final HealthProblemService service;
+    private final CommonCache cache;
 
     @Override
     @PostMapping
-    @CacheEvict(value = { "customer", "customers", "health-problem", "health-problems" }, allEntries = true)
     public ResponseEntity<Map<Object, Object>> create(@Valid @RequestBody Request request) {
         var response = service.create(request);
         var resource = toResource("Health problem created successfully!", response);
@@ -102,27 +119,43 @@ class HealthProblemControllerImpl implements HealthProblemController {
 
     @Override
     @GetMapping("{id}")
-    @Cacheable(value = "health-problem")
-    public ResponseEntity<Map<Object, Object>> getById(@PathVariable UUID id) {
-        var response = service.findById(id);
-        var resource = toResource(response);
-        return ResponseEntity.ok(resource);
+    public ResponseEntity<byte[]> getById(@PathVariable UUID id,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        var body = cache.json(CommonCache.HEALTH_PROBLEM, id, () -> toResource(service.findById(id)));
+        String etag = CommonJson.etag(body.hash(), acceptEncoding);
+        if (request.checkNotModified(etag))
+            return null;
+        return body.toResponse(acceptEncoding, etag);
     }
 
     @Override
     @GetMapping
-    @Cacheable(value = "health-problems")
-    public ResponseEntity<Page<Response>> getAll(
+    public ResponseEntity<byte[]> getAll(
             @RequestParam(name = "page", required = false) Integer pageNumber,
-            @RequestParam(name = "size", required = false) Integer pageSize) {
+            @RequestParam(name = "size", required = false) Integer pageSize,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        String etag = CommonJson.etag(cache.version(CommonCache.HEALTH_PROBLEMS), acceptEncoding);
+        if (request.checkNotModified(etag))
+            return null;
         Pageable pageable = PageRequest.of(pageNumber != null ? pageNumber : 0, pageSize != null ? pageSize : 10);
-        Page<Response> response = service.findAll(pageable);
+        var body = cache.listingJson(CommonCache.HEALTH_PROBLEMS, pageable.getPageNumber() + ":" + pageable.getPageSize(),
+                () -> service.findAll(pageable));
+        return body.toResponse(acceptEncoding, etag);
+    }
+
+    @Override
+    @GetMapping(params = "after")
+    public ResponseEntity<CommonCursor.Slice<Response>> getAllAfter(
+            @RequestParam(name = "after") String after,
+            @RequestParam(name = "size", required = false) Integer pageSize) {
+        var response = service.findAllAfter(CommonCursor.decode(after), pageSize != null ? pageSize : 10);
         return ResponseEntity.ok(response);
     }
 
     @Override
     @PutMapping("{id}")
-    @CacheEvict(value = { "customer", "customers", "health-problem", "health-problems" }, allEntries = true)
     public ResponseEntity<Map<Object, Object>> update(@PathVariable UUID id, @Valid @RequestBody Request request) {
         var response = service.update(id, request);
         var resource = toResource("Health problem updated successfully!", response);
@@ -131,7 +164,6 @@ class HealthProblemControllerImpl implements HealthProblemController {
 
     @Override
     @DeleteMapping("{id}")
-    @CacheEvict(value = { "customer", "customers", "health-problem", "health-problems" }, allEntries = true)
     public ResponseEntity<Map<Object, Object>> delete(@PathVariable UUID id) {
         var response = service.delete(id);
         var resource = toResource("Health problem deleted successfully!", response);
@@ -1,6 +1,7 @@
 package com.github.wesleybritovlk.healthmanager.app.healthproblem;
 
 import java.math.BigInteger;
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.validation.annotation.Validated;
@@ -8,7 +9,9 @@ import org.springframework.validation.annotation.Validated;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.AccessLevel;
@@ -33,6 +36,28 @@ public class HealthProblemDTO {
                         BigInteger severity) {
         }
 
+        @Validated
+        @Schema(name = "HealthProblemBatchRequest", title = "HealthProblemBatchRequest")
+        public static record BatchRequest(
+                        @JsonProperty("health_problems")
+                        @NotEmpty(message = "Health problems shouldn't be empty")
+                        @Size(max = 100, message = "Health problems must be up to 100 per batch")
+                        List<@Valid BatchItem> healthProblems) {
+        }
+
+        @Validated
+        @Schema(name = "HealthProblemBatchItem", title = "HealthProblemBatchItem")
+        public static record BatchItem(
+                        @JsonProperty("problem_name")
+                        @NotBlank(message = "Problem name shouldn't be null")
+                        @Size(min = 3, max = 50, message = "Problem name must be greater than 3 and up to 50 characters")
+                        String hpName,
+
+                        @NotNull(message = "Invalid or null severity. " + 
+                                        "Severity Check: '1' or '2'") 
+                        BigInteger severity) {
+        }
+
         @Schema(name = "HealthProblemResponse", title = "HealthProblemResponse")
         public static record Response(
                         UUID id,
@@ -1,10 +1,37 @@
 package com.github.wesleybritovlk.healthmanager.app.healthproblem;
 
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO.Response;
 
 public interface HealthProblemRepository
                 extends JpaRepository<HealthProblem, UUID> {
-        boolean existsByCustomerIdAndHpName(UUID customerId, String problemName);
+        String RESPONSE = "select new com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO$Response(" +
+                        "hp.id, hp.customer.id, hp.hpName, hp.severity) from health_problem hp ";
+
+        @Query(RESPONSE + "where hp.id = ?1")
+        Optional<Response> findResponseById(UUID id);
+
+        @Query(value = RESPONSE + "order by hp.severity desc, hp.id", countQuery = "select count(hp) from health_problem hp")
+        Page<Response> findAllResponses(Pageable pageable);
+
+        @Query(RESPONSE + "order by hp.severity desc, hp.id")
+        List<Response> findAllResponses(Limit limit);
+
+        @Query(RESPONSE + "where hp.severity < ?1 or (hp.severity = ?1 and hp.id > ?2) " +
+                        "order by hp.severity desc, hp.id")
+        List<Response> findAllResponsesAfter(BigInteger severity, UUID id, Limit limit);
+
+        @Query(RESPONSE + "where hp.customer.id in ?1")
+        List<Response> findAllResponsesByCustomerIdIn(Collection<UUID> customerIds);
 }
@@ -1,11 +1,17 @@
 package com.github.wesleybritovlk.healthmanager.app.healthproblem;
 
+import static com.github.wesleybritovlk.healthmanager.common.CommonTransaction.afterCommit;
+
+import java.math.BigInteger;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -14,14 +20,25 @@ import org.springframework.web.server.ResponseStatusException;
 
 import com.github.wesleybritovlk.healthmanager.app.customer.Customer;
 import com.github.wesleybritovlk.healthmanager.app.customer.CustomerRepository;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerRiskBoard;
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO.BatchItem;
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO.BatchRequest;
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO.Request;
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO.Response;
+import com.github.wesleybritovlk.healthmanager.common.CommonCache;
+import com.github.wesleybritovlk.healthmanager.common.CommonCursor;
 import com.github.wesleybritovlk.healthmanager.common.CommonService;
 
 import lombok.RequiredArgsConstructor;
 
 public interface HealthProblemService
         extends CommonService<HealthProblem, Request, Response> {
+    /**
+     * Creates every health problem of the batch for one customer with one flush
+     * and one severity sum update, a name already taken fails the whole batch
+     * on the {@link HealthProblem#HP_NAME_UK} unique index
+     */
+    List<Map<Object, Object>> createAll(UUID customerId, BatchRequest request);
 }
 
 @Service
@@ -31,6 +48,8 @@ class HealthProblemServiceImpl implements HealthProblemService {
     private final HealthProblemRepository repository;
     private final HealthProblemMapper mapper;
     private final CustomerRepository customerRepo;
+    private final CustomerRiskBoard riskBoard;
+    private final CommonCache cache;
 
     private Customer findCustomer(UUID customerId) {
         return customerRepo.findById(customerId).orElseThrow(
@@ -44,44 +63,90 @@ class HealthProblemServiceImpl implements HealthProblemService {
                         "Health Problem not found, please check the id"));
     }
 
-    private void checkHealthProblemsConflict(UUID customerId, String problemName) {
-        if (repository.existsByCustomerIdAndHpName(customerId, problemName))
-            throw new ResponseStatusException(HttpStatus.CONFLICT,
-                    "This Health Problem already exists in this Customer");
+    /**
+     * A health problem shows in its customer, whose version the severity sum
+     * update bumps, and both listings move on since a severity change
+     * reorders either of them
+     */
+    private void evictCaches(List<UUID> healthProblemIds) {
+        cache.evict(CommonCache.HEALTH_PROBLEM, healthProblemIds);
+        cache.bump(CommonCache.CUSTOMERS);
+        cache.bump(CommonCache.HEALTH_PROBLEMS);
+    }
+
+    private void addSeveritySum(UUID customerId, BigInteger delta) {
+        customerRepo.addSeveritySum(customerId, delta.longValue());
+        afterCommit(() -> riskBoard.add(customerId, delta.longValue()));
+        cache.refresh(CommonCache.CUSTOMER_VIEWS, List.of(customerId));
     }
 
     @Override
     public Map<Object, Object> create(Request request) {
-        checkHealthProblemsConflict(request.customerId(), request.hpName());
         Customer customer = findCustomer(request.customerId());
         HealthProblem model = mapper.toModel(request, customer);
-        customerRepo.saveAndFlush(customer);
         HealthProblem created = repository.saveAndFlush(model);
+        addSeveritySum(customer.getId(), created.getSeverity());
+        evictCaches(List.of());
         return mapper.toResponse(created.getId(), created.getHpName());
     }
 
     @Override
+    public List<Map<Object, Object>> createAll(UUID customerId, BatchRequest request) {
+        Set<String> problemNames = request.healthProblems().stream().map(BatchItem::hpName)
+                .collect(Collectors.toSet());
+        if (problemNames.size() < request.healthProblems().size())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Problem names must be unique in the batch");
+        Customer customer = findCustomer(customerId);
+        List<HealthProblem> models = request.healthProblems().stream()
+                .map(item -> mapper.toModel(new Request(customerId, item.hpName(), item.severity()), customer))
+                .toList();
+        List<HealthProblem> created = repository.saveAll(models);
+        repository.flush();
+        addSeveritySum(customerId, created.stream().map(HealthProblem::getSeverity)
+                .reduce(BigInteger.ZERO, BigInteger::add));
+        evictCaches(List.of());
+        return created.stream().map(hp -> mapper.toResponse(hp.getId(), hp.getHpName())).toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Response findById(UUID id) {
-        HealthProblem healthProblem = findHealthProblem(id);
-        return mapper.toResponse(healthProblem);
+        return repository.findResponseById(id).orElseThrow(
+                () -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Health Problem not found, please check the id"));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Response> findAll(Pageable pageable) {
-        List<Response> responses = repository.findAll().stream().map(mapper::toResponse)
-                .sorted((res0, res1) -> res1.severity().compareTo(res0.severity())).toList();
-        int start = (int) pageable.getOffset();
-        int end = Math.min(start + pageable.getPageSize(), responses.size());
-        return new PageImpl<>(start > end ? List.of() : responses.subList(start, end), pageable, responses.size());
+        return repository.findAllResponses(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CommonCursor.Slice<Response> findAllAfter(CommonCursor after, int size) {
+        CommonCursor.checkSize(size);
+        Limit limit = Limit.of(size + 1);
+        List<Response> responses = after == null ? repository.findAllResponses(limit)
+                : repository.findAllResponsesAfter(BigInteger.valueOf(after.key()), after.id(), limit);
+        return CommonCursor.toSlice(responses, size,
+                response -> new CommonCursor(response.severity().longValue(), response.id()), Function.identity());
     }
 
     @Override
     public Map<Object, Object> update(UUID id, Request request) {
         HealthProblem healthProblem = findHealthProblem(id);
-        if (!healthProblem.getHpName().equals(request.hpName()))
-            checkHealthProblemsConflict(request.customerId(), request.hpName());
+        BigInteger oldSeverity = healthProblem.getSeverity();
         HealthProblem model = mapper.toModel(healthProblem, request);
-        String hpName = repository.saveAndFlush(model).getHpName();
+        HealthProblem updated = repository.saveAndFlush(model);
+        BigInteger delta = updated.getSeverity().subtract(oldSeverity);
+        if (delta.signum() != 0)
+            addSeveritySum(updated.getCustomer().getId(), delta);
+        else
+            customerRepo.bumpVersion(updated.getCustomer().getId());
+        evictCaches(List.of(id));
+        String hpName = updated.getHpName();
         return mapper.toResponse(id, hpName);
     }
 
@@ -90,6 +155,8 @@ class HealthProblemServiceImpl implements HealthProblemService {
         HealthProblem healthProblem = findHealthProblem(id);
         healthProblem.getCustomer().getHealthProblems().remove(healthProblem);
         repository.delete(healthProblem);
+        addSeveritySum(healthProblem.getCustomer().getId(), healthProblem.getSeverity().negate());
+        evictCaches(List.of(id));
         return mapper.toResponse(id);
     }
 }
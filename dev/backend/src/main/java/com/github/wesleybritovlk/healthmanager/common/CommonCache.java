@@ -0,0 +1,286 @@
+package com.github.wesleybritovlk.healthmanager.common;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.wesleybritovlk.healthmanager.common.CommonCacheBus.Invalidation;
+import com.github.wesleybritovlk.healthmanager.common.CommonCacheBus.Kind;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Targeted invalidation applied once the current transaction commits: single
+ * entries are evicted by id or keyed by their version, and listing caches
+ * carry their generation in the key, a bump moves readers to fresh keys and
+ * the old pages age out of the bounded cache. The invalidations of a
+ * transaction are collected and published together on the
+ * {@link CommonCacheBus} right before it commits so peer nodes apply them
+ * too, keys are compared by their string form to travel between nodes.
+ * In-memory views kept by the services are refreshed on the peers through the
+ * same bus
+ */
+public interface CommonCache {
+    String CUSTOMER = "customer";
+    String CUSTOMERS = "customers";
+    String HEALTH_PROBLEM = "health-problem";
+    String HEALTH_PROBLEMS = "health-problems";
+    /** The in-memory risk board and name index of the customers */
+    String CUSTOMER_VIEWS = "customer-views";
+
+    /** Current generation of a listing cache, used in its keys */
+    long generation(String cacheName);
+
+    /**
+     * Generation of a listing cache tagged with this process start, so versions
+     * handed out before a restart never match again
+     */
+    String version(String cacheName);
+
+    /**
+     * Encoded body of the entry, the loader runs and is encoded only on a miss
+     * and concurrent misses on the same key wait for that single load instead
+     * of running their own, counted by the {@code cache.flights} metric
+     */
+    CommonJson json(String cacheName, Object key, Supplier<?> loader);
+
+    /** Same as {@link #json} for a listing page, keyed under the current generation */
+    CommonJson listingJson(String cacheName, Object key, Supplier<?> loader);
+
+    void evict(String cacheName, Collection<?> keys);
+
+    void bump(String cacheName);
+
+    void clear(String cacheName);
+
+    /**
+     * Asks the peer nodes to re-read the keyed rows into the in-memory view
+     * once the transaction commits, the writing node updates its own view
+     */
+    void refresh(String viewName, Collection<?> keys);
+
+    /** Reader called with the keys a peer node refreshed in the view */
+    void onRefresh(String viewName, Consumer<List<String>> reader);
+}
+
+@Component("commonCache")
+@RequiredArgsConstructor
+class CommonCacheImpl implements CommonCache {
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final CommonCacheBus bus;
+    private final String node = UUID.randomUUID().toString();
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    /** Evictions applied per cache, lets a load tell whether one landed while it ran */
+    private final Map<String, AtomicLong> evictions = new ConcurrentHashMap<>();
+    private final Map<List<Object>, CompletableFuture<CommonJson>> flights = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<List<String>>>> readers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void subscribe() {
+        bus.subscribe(node, this::apply);
+    }
+
+    private void countFlight(String cacheName, String result) {
+        meterRegistry.counter("cache.flights", "cache", cacheName, "result", result).increment();
+    }
+
+    private AtomicLong generationOf(String cacheName) {
+        return generations.computeIfAbsent(cacheName, name -> new AtomicLong());
+    }
+
+    private AtomicLong evictionsOf(String cacheName) {
+        return evictions.computeIfAbsent(cacheName, name -> new AtomicLong());
+    }
+
+    private Optional<Cache> cache(String cacheName) {
+        return Optional.ofNullable(cacheManager.getCache(cacheName));
+    }
+
+    @Override
+    public long generation(String cacheName) {
+        return generationOf(cacheName).get();
+    }
+
+    @Override
+    public String version(String cacheName) {
+        return EPOCH + "." + generation(cacheName);
+    }
+
+    @Override
+    public CommonJson json(String cacheName, Object key, Supplier<?> loader) {
+        String cacheKey = String.valueOf(key);
+        Cache cache = cache(cacheName).orElseThrow(
+                () -> new IllegalStateException("Cache '" + cacheName + "' isn't configured"));
+        CommonJson hit = cache.get(cacheKey, CommonJson.class);
+        if (hit != null)
+            return hit;
+        List<Object> flightKey = List.of(cacheName, cacheKey);
+        var flight = new CompletableFuture<CommonJson>();
+        CompletableFuture<CommonJson> leader = flights.putIfAbsent(flightKey, flight);
+        if (leader != null) {
+            countFlight(cacheName, "coalesced");
+            return await(leader);
+        }
+        try {
+            CommonJson body = cache.get(cacheKey, CommonJson.class);
+            if (body == null) {
+                countFlight(cacheName, "leader");
+                body = load(cache, cacheKey, loader);
+            }
+            flight.complete(body);
+            return body;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(flightKey, flight);
+        }
+    }
+
+    /**
+     * Loads and caches the entry, unless an eviction was applied while the
+     * loader ran: the body may predate the write behind it, and that eviction
+     * found nothing to remove. The stamp is read again after the put, an
+     * eviction that lands after it removes the entry itself
+     */
+    private CommonJson load(Cache cache, String cacheKey, Supplier<?> loader) {
+        AtomicLong stamp = evictionsOf(cache.getName());
+        long before = stamp.get();
+        CommonJson body = CommonJson.of(objectMapper, loader.get());
+        cache.put(cacheKey, body);
+        if (stamp.get() != before)
+            cache.evict(cacheKey);
+        return body;
+    }
+
+    /** Waits for the leader load and rethrows its failure as it was thrown */
+    private static CommonJson await(CompletableFuture<CommonJson> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+    }
+
+    @Override
+    public CommonJson listingJson(String cacheName, Object key, Supplier<?> loader) {
+        return json(cacheName, generation(cacheName) + ":" + key, loader);
+    }
+
+    @Override
+    public void evict(String cacheName, Collection<?> keys) {
+        if (!keys.isEmpty())
+            invalidate(Kind.EVICT, cacheName, keys.stream().map(String::valueOf).toList());
+    }
+
+    @Override
+    public void bump(String cacheName) {
+        invalidate(Kind.BUMP, cacheName, List.of());
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        invalidate(Kind.CLEAR, cacheName, List.of());
+    }
+
+    @Override
+    public void refresh(String viewName, Collection<?> keys) {
+        if (!keys.isEmpty())
+            invalidate(Kind.REFRESH, viewName, keys.stream().map(String::valueOf).toList());
+    }
+
+    @Override
+    public void onRefresh(String viewName, Consumer<List<String>> reader) {
+        readers.computeIfAbsent(viewName, name -> new CopyOnWriteArrayList<>()).add(reader);
+    }
+
+    private void invalidate(Kind kind, String cacheName, List<String> keys) {
+        var invalidation = new Invalidation(node, kind, cacheName, keys);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bus.publish(List.of(invalidation));
+            applyLocally(invalidation);
+            return;
+        }
+        pending().add(invalidation);
+    }
+
+    /**
+     * Invalidations of the current transaction, the first one registers their
+     * publication before the commit and their local application after it
+     */
+    private Set<Invalidation> pending() {
+        @SuppressWarnings("unchecked")
+        var pending = (Set<Invalidation>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null)
+            return pending;
+        var batch = new LinkedHashSet<Invalidation>();
+        TransactionSynchronizationManager.bindResource(this, batch);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                bus.publish(List.copyOf(batch));
+            }
+
+            @Override
+            public void afterCommit() {
+                batch.forEach(CommonCacheImpl.this::applyLocally);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CommonCacheImpl.this);
+            }
+        });
+        return batch;
+    }
+
+    /** A refresh is only for the peers, the writing node updates its own view */
+    private void applyLocally(Invalidation invalidation) {
+        if (invalidation.kind() != Kind.REFRESH)
+            apply(invalidation);
+    }
+
+    private void apply(Invalidation invalidation) {
+        String cacheName = invalidation.cacheName();
+        switch (invalidation.kind()) {
+            case EVICT -> {
+                evictionsOf(cacheName).incrementAndGet();
+                cache(cacheName).ifPresent(cache -> invalidation.keys().forEach(cache::evict));
+            }
+            case BUMP -> generationOf(cacheName).incrementAndGet();
+            case CLEAR -> {
+                evictionsOf(cacheName).incrementAndGet();
+                cache(cacheName).ifPresent(Cache::clear);
+            }
+            case REFRESH -> readers.getOrDefault(cacheName, List.of())
+                    .forEach(reader -> reader.accept(invalidation.keys()));
+        }
+    }
+}
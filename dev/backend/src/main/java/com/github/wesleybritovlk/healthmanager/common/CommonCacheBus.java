@@ -0,0 +1,207 @@
+package com.github.wesleybritovlk.healthmanager.common;
+
+import static com.github.wesleybritovlk.healthmanager.common.CommonTransaction.afterCommit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Carries the cache invalidations of a node to its peers, each node applies
+ * its own invalidations locally and only receives the ones of other nodes.
+ * A refresh asks the peers to re-read the keyed rows into an in-memory view.
+ * The transport is chosen with {@code app.cache.bus.transport}
+ */
+public interface CommonCacheBus {
+    enum Kind {
+        EVICT, BUMP, CLEAR, REFRESH
+    }
+
+    record Invalidation(String node, Kind kind, String cacheName, List<String> keys) {
+    }
+
+    /**
+     * Called once before the transaction of the change commits with all its
+     * invalidations, peers see them only once it commits
+     */
+    void publish(List<Invalidation> invalidations);
+
+    /** Listener of the invalidations published by any node but the given one */
+    void subscribe(String node, Consumer<Invalidation> listener);
+}
+
+abstract class CommonCacheBusSupport implements CommonCacheBus {
+    private final Map<String, Consumer<Invalidation>> listeners = new ConcurrentHashMap<>();
+
+    @Override
+    public void subscribe(String node, Consumer<Invalidation> listener) {
+        listeners.put(node, listener);
+    }
+
+    protected boolean isLocal(String node) {
+        return listeners.containsKey(node);
+    }
+
+    protected void deliver(Invalidation invalidation) {
+        listeners.forEach((node, listener) -> {
+            if (!node.equals(invalidation.node()))
+                listener.accept(invalidation);
+        });
+    }
+}
+
+/**
+ * Delivers to the nodes subscribed in this process once the transaction
+ * commits, a single node has no peers so this is the default transport
+ */
+@Component
+@ConditionalOnProperty(name = "app.cache.bus.transport", havingValue = "in-process", matchIfMissing = true)
+class InProcessCacheBus extends CommonCacheBusSupport {
+
+    @Override
+    public void publish(List<Invalidation> invalidations) {
+        afterCommit(() -> invalidations.forEach(this::deliver));
+    }
+}
+
+/**
+ * Change log table shared by the nodes through the database, every node polls
+ * the rows created after the newest one it read and applies the ones it
+ * hasn't seen, so a peer applies an invalidation within a poll interval of its
+ * commit. Each poll reads again an overlap before that row, it covers clock
+ * skew between the writing nodes and the short time between a row, written
+ * right before its transaction commits, and the commit. Polls run on their own
+ * thread so the other scheduled jobs, such as the retention purges, never
+ * delay them
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.cache.bus.transport", havingValue = "database")
+class DatabaseCacheBus extends CommonCacheBusSupport {
+    private final CommonCacheEventRepository repository;
+    private final MeterRegistry meterRegistry;
+    /** Rows of the overlap already applied */
+    private final Map<UUID, Instant> applied = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "cache-bus-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Creation of the newest row read, in the clock of the node that wrote it */
+    private Instant newest;
+    @Value("${app.cache.bus.overlap:PT5S}")
+    private Duration overlap;
+    @Value("${app.cache.bus.poll-interval:PT1S}")
+    private Duration pollInterval;
+    @Value("${app.cache.bus.retention:PT1H}")
+    private Duration retention;
+
+    @Override
+    public void publish(List<Invalidation> invalidations) {
+        if (invalidations.isEmpty())
+            return;
+        String node = invalidations.get(0).node();
+        repository.saveAll(chunks(invalidations).stream()
+                .map(lines -> CommonCacheEvent.builder().node(node).invalidations(lines).build()).toList());
+    }
+
+    /**
+     * One invalidation per line as its kind, cache name and keys separated by
+     * spaces, packed in as few rows as the column length allows. The keys of a
+     * long eviction are split across lines
+     */
+    private static List<String> chunks(List<Invalidation> invalidations) {
+        var chunks = new ArrayList<String>();
+        var chunk = new StringBuilder();
+        for (Invalidation invalidation : invalidations)
+            for (String line : lines(invalidation)) {
+                if (!chunk.isEmpty() && chunk.length() + 1 + line.length() > CommonCacheEvent.INVALIDATIONS_LENGTH) {
+                    chunks.add(chunk.toString());
+                    chunk.setLength(0);
+                }
+                chunk.append(chunk.isEmpty() ? "" : "\n").append(line);
+            }
+        chunks.add(chunk.toString());
+        return chunks;
+    }
+
+    private static List<String> lines(Invalidation invalidation) {
+        var lines = new ArrayList<String>();
+        var line = new StringBuilder(invalidation.kind() + " " + invalidation.cacheName());
+        int head = line.length();
+        for (String key : invalidation.keys()) {
+            if (line.length() > head && line.length() + 1 + key.length() > CommonCacheEvent.INVALIDATIONS_LENGTH) {
+                lines.add(line.toString());
+                line.setLength(head);
+            }
+            line.append(' ').append(key);
+        }
+        lines.add(line.toString());
+        return lines;
+    }
+
+    private static Invalidation parse(String node, String line) {
+        String[] parts = line.split(" ");
+        return new Invalidation(node, Kind.valueOf(parts[0]), parts[1], List.of(parts).subList(2, parts.length));
+    }
+
+    @PostConstruct
+    void start() {
+        poller.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                log.warn("Failed to poll the cache events, retrying in {}", pollInterval, e);
+            }
+        }, pollInterval.toNanos(), pollInterval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        poller.shutdownNow();
+    }
+
+    void poll() {
+        Instant since = (newest == null ? Instant.now() : newest).minus(overlap);
+        for (CommonCacheEvent event : repository.findAllByCreatedAtAfterOrderByCreatedAt(since)) {
+            if (newest == null || event.getCreatedAt().isAfter(newest))
+                newest = event.getCreatedAt();
+            if (isLocal(event.getNode()) || applied.putIfAbsent(event.getId(), event.getCreatedAt()) != null)
+                continue;
+            for (String line : event.getInvalidations().split("\n")) {
+                Invalidation invalidation = parse(event.getNode(), line);
+                deliver(invalidation);
+                meterRegistry.timer("cache.bus.lag", "cache", invalidation.cacheName())
+                        .record(Duration.between(event.getCreatedAt(), Instant.now()));
+            }
+        }
+        Instant next = newest == null ? since : newest.minus(overlap);
+        applied.values().removeIf(createdAt -> createdAt.isBefore(next));
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.bus.retention:PT1H}")
+    void purge() {
+        repository.deleteAllCreatedBefore(Instant.now().minus(retention));
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.wesleybritovlk.healthmanager.common;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Row of the cache change log shared by the nodes, written right before the
+ * transaction of the change it invalidates commits so peers only see
+ * committed changes
+ */
+@Builder
+@Getter
+@AllArgsConstructor(access = AccessLevel.PROTECTED)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Entity(name = "cache_event")
+@Table(indexes = @Index(name = "cache_event_created_at_idx", columnList = "created_at"))
+public class CommonCacheEvent {
+    static final int INVALIDATIONS_LENGTH = 4000;
+
+    @Id
+    @CommonUuid
+    private UUID id;
+    @CreationTimestamp
+    @Column(nullable = false)
+    private Instant createdAt;
+    @Column(nullable = false, length = 36)
+    private String node;
+    /** Invalidations of the transaction, one per line as its kind, cache name and keys */
+    @Column(nullable = false, length = INVALIDATIONS_LENGTH)
+    private String invalidations;
+}
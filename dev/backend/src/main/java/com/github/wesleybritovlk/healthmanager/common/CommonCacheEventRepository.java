@@ -0,0 +1,19 @@
+package com.github.wesleybritovlk.healthmanager.common;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface CommonCacheEventRepository extends JpaRepository<CommonCacheEvent, UUID> {
+    List<CommonCacheEvent> findAllByCreatedAtAfterOrderByCreatedAt(Instant after);
+
+    @Transactional
+    @Modifying
+    @Query("delete from cache_event e where e.createdAt < ?1")
+    int deleteAllCreatedBefore(Instant before);
+}
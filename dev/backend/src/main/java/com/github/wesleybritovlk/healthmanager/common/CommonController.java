@@ -3,15 +3,17 @@ package com.github.wesleybritovlk.healthmanager.common;
 import java.util.Map;
 import java.util.UUID;
 
-import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
 
 public interface CommonController<Request, Response> {
     ResponseEntity<Map<Object, Object>> create(Request request);
 
-    ResponseEntity<Map<Object, Object>> getById(UUID id);
+    ResponseEntity<byte[]> getById(UUID id, String acceptEncoding, WebRequest request);
 
-    ResponseEntity<Page<Response>> getAll(Integer pageNumber, Integer pageSize);
+    ResponseEntity<byte[]> getAll(Integer pageNumber, Integer pageSize, String acceptEncoding, WebRequest request);
+
+    ResponseEntity<CommonCursor.Slice<Response>> getAllAfter(String after, Integer pageSize);
 
     ResponseEntity<Map<Object, Object>> update(UUID id, Request request);
 
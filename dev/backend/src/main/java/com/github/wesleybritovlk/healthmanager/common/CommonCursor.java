@@ -0,0 +1,62 @@
+package com.github.wesleybritovlk.healthmanager.common;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Opaque keyset pagination cursor holding the sort key and id of the last seen
+ * row, so the next page is a seek on the index instead of an offset scan
+ */
+public record CommonCursor(long key, UUID id) {
+    public static final int MAX_SIZE = 100;
+    private static final int BYTES = Long.BYTES * 3;
+
+    public static CommonCursor decode(String token) {
+        if (token == null || token.isBlank())
+            return null;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+            if (buffer.remaining() != BYTES)
+                throw new IllegalArgumentException();
+            return new CommonCursor(buffer.getLong(), new UUID(buffer.getLong(), buffer.getLong()));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor, please check the 'after' query");
+        }
+    }
+
+    /** Rejects a slice size out of 1 to {@link #MAX_SIZE}, so a slice never loads most of the table */
+    public static void checkSize(int size) {
+        if (size < 1 || size > MAX_SIZE)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Query 'size' must be between 1 and " + MAX_SIZE);
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES).putLong(key)
+                .putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Builds a slice from rows fetched with a limit of {@code size + 1}, the extra
+     * row only tells whether there is a next page
+     */
+    public static <M, R> Slice<R> toSlice(List<M> rows, int size, Function<M, CommonCursor> toCursor,
+            Function<List<M>, List<R>> toResponses) {
+        List<M> page = rows.subList(0, Math.min(size, rows.size()));
+        String next = rows.size() > size ? toCursor.apply(page.get(size - 1)).encode() : null;
+        return new Slice<>(toResponses.apply(page), page.size(), next);
+    }
+
+    @Schema(name = "CursorSlice", title = "CursorSlice")
+    public static record Slice<T>(List<T> content, int size, String next) {
+    }
+}
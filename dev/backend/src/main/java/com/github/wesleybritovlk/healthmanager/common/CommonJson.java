@@ -0,0 +1,73 @@
+package com.github.wesleybritovlk.healthmanager.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Response body encoded once as UTF-8 JSON, with a gzip variant when it is
+ * large enough to pay off, so a cache hit only copies bytes to the socket,
+ * the hash versions bodies that have no version of their own
+ */
+public record CommonJson(byte[] json, byte[] gzip, String hash) {
+    static final int GZIP_MIN_BYTES = 1024;
+    private static final int HASH_BYTES = 16;
+
+    public static CommonJson of(ObjectMapper objectMapper, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            String hash = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    Arrays.copyOf(MessageDigest.getInstance("SHA-256").digest(json), HASH_BYTES));
+            if (json.length < GZIP_MIN_BYTES)
+                return new CommonJson(json, null, hash);
+            var gzip = new ByteArrayOutputStream(json.length / 4);
+            try (var output = new GZIPOutputStream(gzip)) {
+                output.write(json);
+            }
+            return new CommonJson(json, gzip.toByteArray(), hash);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Strong ETag of a version, a client that accepts gzip may get the gzip
+     * variant so its tag is kept apart from the identity one
+     */
+    public static String etag(Object version, String acceptEncoding) {
+        return "\"" + version + (acceptsGzip(acceptEncoding) ? "-gzip" : "") + "\"";
+    }
+
+    /**
+     * Answers with the gzip variant when the 'Accept-Encoding' header allows it,
+     * the length comes from the byte array so no chunked encoding is needed
+     */
+    public ResponseEntity<byte[]> toResponse(String acceptEncoding, String etag) {
+        var response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip != null && acceptsGzip(acceptEncoding))
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").contentLength(gzip.length).body(gzip);
+        return response.contentLength(json.length).body(json);
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+        return Arrays.stream(acceptEncoding.split(",")).map(coding -> coding.trim().split(";"))
+                .anyMatch(coding -> coding[0].trim().equalsIgnoreCase("gzip")
+                        && (coding.length == 1 || !coding[1].trim().matches("q=0(\\.0*)?")));
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.wesleybritovlk.healthmanager.common;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer multi-consumer queue (Vyukov), each slot
+ * carries a sequence telling whether it is free for the producer of a
+ * position or filled for its consumer, so offer and poll only race on a
+ * compare-and-set of their own cursor and never allocate
+ */
+public final class CommonRingBuffer<E> {
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Capacity rounded up to the next power of two, at least two slots so the
+     * sequence of a filled slot never reads as free for the next lap
+     */
+    public CommonRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        int size = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.elements = new AtomicReferenceArray<>(size);
+        for (int i = 0; i < size; i++)
+            sequences.set(i, i);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /** Approximate number of elements while producers and consumers run */
+    public int size() {
+        return (int) Math.min(Math.max(tail.get() - head.get(), 0), capacity());
+    }
+
+    /** False when the buffer is full */
+    public boolean offer(E element) {
+        if (element == null)
+            throw new NullPointerException();
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long gap = sequences.get(index) - position;
+            if (gap == 0 && tail.compareAndSet(position, position + 1)) {
+                elements.lazySet(index, element);
+                sequences.set(index, position + 1);
+                return true;
+            }
+            if (gap < 0)
+                return false;
+            position = tail.get();
+        }
+    }
+
+    /** Null when the buffer is empty */
+    public E poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            long gap = sequences.get(index) - (position + 1);
+            if (gap == 0 && head.compareAndSet(position, position + 1)) {
+                E element = elements.get(index);
+                elements.lazySet(index, null);
+                sequences.set(index, position + mask + 1);
+                return element;
+            }
+            if (gap < 0)
+                return null;
+            position = head.get();
+        }
+    }
+
+    /** Moves up to max elements to the target, returns how many were moved */
+    public int drainTo(Collection<? super E> target, int max) {
+        int drained = 0;
+        E element;
+        while (drained < max && (element = poll()) != null) {
+            target.add(element);
+            drained++;
+        }
+        return drained;
+    }
+}
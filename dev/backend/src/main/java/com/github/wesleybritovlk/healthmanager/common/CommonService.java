@@ -13,6 +13,8 @@ public interface CommonService<Model, Request, Response> {
 
     Page<Response> findAll(Pageable pageable);
 
+    CommonCursor.Slice<Response> findAllAfter(CommonCursor after, int size);
+
     Map<Object, Object> update(UUID id, Request request);
 
     Map<Object, Object> delete(UUID id);
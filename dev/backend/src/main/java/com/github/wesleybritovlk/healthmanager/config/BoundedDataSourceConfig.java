@@ -0,0 +1,44 @@
+package com.github.wesleybritovlk.healthmanager.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Hikari pool fronted by a {@link BoundedDataSource} sized to it, imported by
+ * {@link VirtualThreadConfig}. The pool stays a bean of its own so the Hikari
+ * metrics and health check still find it, the bounded data source is the
+ * primary one injected everywhere else and unwraps to the pool. The queue of
+ * callers waiting for a connection is the {@code datasource.permits.waiting}
+ * gauge
+ */
+class BoundedDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource hikariDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    BoundedDataSource dataSource(HikariDataSource hikariDataSource,
+            @Value("${app.datasource.acquire-timeout:PT30S}") Duration acquireTimeout) {
+        return new BoundedDataSource(hikariDataSource, hikariDataSource.getMaximumPoolSize(), acquireTimeout);
+    }
+
+    @Bean
+    MeterBinder boundedDataSourceMetrics(BoundedDataSource dataSource) {
+        return registry -> Gauge.builder("datasource.permits.waiting", dataSource, BoundedDataSource::getQueueLength)
+                .description("Callers waiting for a connection permit").register(registry);
+    }
+}
@@ -1,16 +1,40 @@
 package com.github.wesleybritovlk.healthmanager.config;
 
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Caffeine caches bounded per cache name from {@code app.cache.specs}, the
+ * W-TinyLFU admission keeps frequently read entries when the size bound is
+ * reached and the recorded stats are published as {@code cache.*} metrics
+ */
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CacheConfig.CacheProperties.class)
 public class CacheConfig {
+
+    @ConfigurationProperties("app.cache")
+    public record CacheProperties(Map<String, Spec> specs) {
+        public record Spec(long maximumSize, Duration ttl) {
+        }
+    }
+
     @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("customer", "customers", "health-problem", "health-problems");
+    public CacheManager cacheManager(CacheProperties properties) {
+        var cacheManager = new CaffeineCacheManager();
+        cacheManager.setCacheNames(properties.specs().keySet());
+        properties.specs().forEach((name, spec) -> cacheManager.registerCustomCache(name, Caffeine.newBuilder()
+                .maximumSize(spec.maximumSize()).expireAfterWrite(spec.ttl()).recordStats().build()));
+        return cacheManager;
     }
 }
@@ -0,0 +1,48 @@
+package com.github.wesleybritovlk.healthmanager.config;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Size and counters of each cache at {@code /actuator/cachestats}, a single
+ * cache is cleared with {@code DELETE /actuator/caches/{name}} and an unknown
+ * name answers 404
+ */
+@Component
+@Endpoint(id = "cachestats")
+@RequiredArgsConstructor
+public class CacheStatsEndpoint {
+    private final CacheManager cacheManager;
+
+    public record Stats(long size, long hits, long misses, double hitRate, long evictions) {
+    }
+
+    @ReadOperation
+    public Map<String, Stats> caches() {
+        Map<String, Stats> caches = new TreeMap<>();
+        cacheManager.getCacheNames().forEach(name -> caches.put(name, cache(name)));
+        return caches;
+    }
+
+    @ReadOperation
+    public Stats cache(@Selector String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (!(cache instanceof CaffeineCache caffeine))
+            return null;
+        CacheStats stats = caffeine.getNativeCache().stats();
+        return new Stats(caffeine.getNativeCache().estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount());
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.wesleybritovlk.healthmanager.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Opt-in virtual thread mode, active with {@code spring.threads.virtual.enabled}
+ * on Java 21 or later (the {@code virtual} profile): Tomcat requests, task
+ * executors and schedulers run on virtual threads, and the pool is fronted
+ * by a {@link BoundedDataSource} sized to it, see {@link BoundedDataSourceConfig}
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Import(BoundedDataSourceConfig.class)
+public class VirtualThreadConfig {
+}
@@ -0,0 +1,95 @@
+package com.github.wesleybritovlk.healthmanager.config;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.RiskResponse;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerService;
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemService;
+import com.github.wesleybritovlk.healthmanager.common.CommonJson;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Warmup run before the readiness state turns to accepting traffic, the
+ * runners are called ahead of the ready event so the readiness probe answers
+ * out of service meanwhile. The read paths are looped in-process for the JIT,
+ * then the first listing pages and the top-risk customers are requested
+ * through the running server so they are cached under the keys the
+ * controllers use. The time taken is published as the {@code app.warmup} timer
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@EnableConfigurationProperties(WarmupRunner.WarmupProperties.class)
+@ConditionalOnProperty(name = "app.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class WarmupRunner implements ApplicationRunner {
+    private final WarmupProperties properties;
+    private final CustomerService customerService;
+    private final HealthProblemService healthProblemService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationContext context;
+
+    @ConfigurationProperties("app.warmup")
+    public record WarmupProperties(boolean enabled, int iterations, int pages, int pageSize, int topRisk) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            List<UUID> topRisk = customerService.findTopRisk(properties.topRisk()).stream()
+                    .map(RiskResponse::id).toList();
+            for (int i = 0; i < properties.iterations(); i++)
+                exercise(topRisk);
+            if (context instanceof WebServerApplicationContext server && server.getWebServer() != null)
+                preload(RestClient.create("http://localhost:" + server.getWebServer().getPort()), topRisk);
+        } catch (RuntimeException e) {
+            outcome = "failure";
+            log.warn("Warmup stopped early, serving with partially warm caches", e);
+        } finally {
+            long nanos = sample.stop(Timer.builder("app.warmup").description("Time spent warming up before readiness")
+                    .tag("outcome", outcome).register(meterRegistry));
+            log.info("Warmup {} in {} ms", outcome, nanos / 1_000_000);
+        }
+    }
+
+    /** Repository queries, mapping and encoding of the hot read paths, nothing is cached */
+    private void exercise(List<UUID> topRisk) {
+        var firstPage = PageRequest.of(0, properties.pageSize());
+        CommonJson.of(objectMapper, customerService.findAll(firstPage));
+        CommonJson.of(objectMapper, healthProblemService.findAll(firstPage));
+        CommonJson.of(objectMapper, customerService.findTopRisk(properties.topRisk()));
+        if (!topRisk.isEmpty())
+            CommonJson.of(objectMapper, customerService.findById(topRisk.get(0)));
+    }
+
+    private void preload(RestClient client, List<UUID> topRisk) {
+        for (int page = 0; page < properties.pages(); page++)
+            for (String listing : List.of("/api/customers", "/api/health-problems"))
+                client.get().uri(listing + "?page={page}&size={size}", page, properties.pageSize())
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip").retrieve().toBodilessEntity();
+        for (UUID id : topRisk)
+            client.get().uri("/api/customers/{id}", id)
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip").retrieve().toBodilessEntity();
+    }
+}
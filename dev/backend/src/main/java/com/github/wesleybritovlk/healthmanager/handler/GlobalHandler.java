@@ -2,16 +2,17 @@ package com.github.wesleybritovlk.healthmanager.handler;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.UUID;
 
-import org.hibernate.annotations.CreationTimestamp;
+import com.github.wesleybritovlk.healthmanager.common.CommonUuid;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -23,20 +24,26 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor(access = AccessLevel.PROTECTED)
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Entity(name = "handler_exception")
+@Table(indexes = @Index(name = "handler_exception_bucket_idx", columnList = "bucket, created_at"))
 public class GlobalHandler implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
+    /** Length of the text columns, longer values are cut by the service */
+    static final int TEXT_LENGTH = 255;
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @CommonUuid
     private UUID id;
-    @CreationTimestamp
+    /** Time of the error, set by the service since rows are written after the response */
     private ZonedDateTime createdAt;
+    /** UTC day of the error, the retention job deletes the expired days in chunks */
     @Column(nullable = false)
-    private Integer status;
+    private LocalDate bucket;
     @Column(nullable = false)
+    private Integer status;
+    @Column(nullable = false, length = TEXT_LENGTH)
     private String error;
-    @Column(nullable = false)
+    @Column(nullable = false, length = TEXT_LENGTH)
     private String message;
-    @Column(nullable = false)
+    @Column(nullable = false, length = TEXT_LENGTH)
     private String requestPath;
 }
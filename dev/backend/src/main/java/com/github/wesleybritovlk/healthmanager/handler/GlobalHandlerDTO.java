@@ -11,4 +11,16 @@ public record GlobalHandlerDTO(
                 String error,
                 String message,
                 String request_path) {
+
+        @Schema(name = "GlobalHandlerRollup", title = "GlobalHandlerRollup")
+        public record Rollup(
+                        int status,
+                        String error,
+                        String message,
+                        String request_path,
+                        long count,
+                        double per_minute,
+                        ZonedDateTime first_seen,
+                        ZonedDateTime last_seen) {
+        }
 }
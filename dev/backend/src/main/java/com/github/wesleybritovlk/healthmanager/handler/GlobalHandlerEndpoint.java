@@ -0,0 +1,37 @@
+package com.github.wesleybritovlk.healthmanager.handler;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Error totals of the last window (one hour by default) at
+ * {@code /actuator/errors?window=PT15M}, summed from the rollup rows written
+ * in the aggregate log mode so the raw table is never scanned
+ */
+@Component
+@Endpoint(id = "errors")
+@RequiredArgsConstructor
+public class GlobalHandlerEndpoint {
+    private static final Duration DEFAULT_WINDOW = Duration.ofHours(1);
+
+    private final GlobalHandlerRollupRepository repository;
+
+    @ReadOperation
+    public List<GlobalHandlerDTO.Rollup> rollup(@Nullable Duration window) {
+        Duration span = window != null ? window : DEFAULT_WINDOW;
+        double minutes = Math.max(span.toSeconds(), 1) / 60.0;
+        return repository.sumSince(ZonedDateTime.now().minus(span)).stream()
+                .map(total -> new GlobalHandlerDTO.Rollup(total.status(), total.error(), total.message(),
+                        total.requestPath(), total.count(), total.count() / minutes, total.firstSeen(),
+                        total.lastSeen()))
+                .toList();
+    }
+}
@@ -2,8 +2,12 @@ package com.github.wesleybritovlk.healthmanager.handler;
 
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.mapping.PropertyReferenceException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +19,8 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblem;
+
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
@@ -37,11 +43,18 @@ public interface GlobalHandlerException {
 
         ResponseEntity<GlobalHandlerDTO> handlePropertyReferenceException(ConstraintViolationException ex,
                         HttpServletRequest request);
+
+        ResponseEntity<GlobalHandlerDTO> handleDataIntegrityViolationException(DataIntegrityViolationException ex,
+                        HttpServletRequest request);
 }
 
 @ControllerAdvice
 @RequiredArgsConstructor
 class GlobalHandlerExceptionImpl implements GlobalHandlerException {
+        /** Messages of the unique constraints that replaced the check-then-insert queries */
+        private static final Map<String, String> UNIQUE_CONSTRAINTS = Map.of(
+                        HealthProblem.HP_NAME_UK, "This Health Problem already exists in this Customer");
+
         private final GlobalHandlerService service;
 
         @Override
@@ -117,4 +130,27 @@ class GlobalHandlerExceptionImpl implements GlobalHandlerException {
                 service.create(dto);
                 return ResponseEntity.status(status).body(dto);
         }
+
+        /**
+         * Conflicts with a known unique constraint are answered with 409, any
+         * other violation is a server bug and answered as an unexpected error
+         */
+        @Override
+        @ExceptionHandler(DataIntegrityViolationException.class)
+        public ResponseEntity<GlobalHandlerDTO> handleDataIntegrityViolationException(
+                        DataIntegrityViolationException ex,
+                        HttpServletRequest request) {
+                String constraint = ex.getCause() instanceof org.hibernate.exception.ConstraintViolationException cause
+                                && cause.getConstraintName() != null
+                                                ? cause.getConstraintName().toLowerCase(Locale.ROOT)
+                                                : "";
+                Optional<String> conflict = UNIQUE_CONSTRAINTS.entrySet().stream()
+                                .filter(entry -> constraint.contains(entry.getKey())).map(Map.Entry::getValue)
+                                .findFirst();
+                HttpStatus status = conflict.isPresent() ? HttpStatus.CONFLICT : HttpStatus.INTERNAL_SERVER_ERROR;
+                GlobalHandlerDTO dto = new GlobalHandlerDTO(ZonedDateTime.now(), status.value(),
+                                status.getReasonPhrase(), conflict.orElse(ex.getMessage()), request.getRequestURI());
+                service.create(dto);
+                return ResponseEntity.status(status).body(dto);
+        }
 }
@@ -1,8 +1,25 @@
 package com.github.wesleybritovlk.healthmanager.handler;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface GlobalHandlerRepository extends JpaRepository<GlobalHandler, UUID> {
+    @Query("select distinct h.bucket from handler_exception h where h.bucket < ?1 order by h.bucket")
+    List<LocalDate> findAllBucketsBefore(LocalDate cutoff);
+
+    @Query("select h.id from handler_exception h where h.bucket = ?1")
+    List<UUID> findAllIdsByBucket(LocalDate bucket, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("delete from handler_exception h where h.id in ?1")
+    int deleteAllByIdIn(Collection<UUID> ids);
 }
@@ -0,0 +1,51 @@
+package com.github.wesleybritovlk.healthmanager.handler;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import com.github.wesleybritovlk.healthmanager.common.CommonUuid;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Count of identical errors seen during one rollup interval, the request path
+ * has its ids replaced so the same route shares a row
+ */
+@Builder
+@Getter
+@AllArgsConstructor(access = AccessLevel.PROTECTED)
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Entity(name = "handler_exception_rollup")
+@Table(indexes = @Index(name = "handler_exception_rollup_last_seen_idx", columnList = "last_seen"))
+public class GlobalHandlerRollup implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    @Id
+    @CommonUuid
+    private UUID id;
+    @Column(nullable = false)
+    private Integer status;
+    @Column(nullable = false, length = GlobalHandler.TEXT_LENGTH)
+    private String error;
+    @Column(nullable = false, length = GlobalHandler.TEXT_LENGTH)
+    private String message;
+    @Column(nullable = false, length = GlobalHandler.TEXT_LENGTH)
+    private String requestPath;
+    @Column(nullable = false)
+    private Long count;
+    @Column(nullable = false)
+    private ZonedDateTime firstSeen;
+    @Column(nullable = false)
+    private ZonedDateTime lastSeen;
+}
@@ -0,0 +1,32 @@
+package com.github.wesleybritovlk.healthmanager.handler;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface GlobalHandlerRollupRepository extends JpaRepository<GlobalHandlerRollup, UUID> {
+    record Total(int status, String error, String message, String requestPath, long count,
+            ZonedDateTime firstSeen, ZonedDateTime lastSeen) {
+    }
+
+    @Query("select new com.github.wesleybritovlk.healthmanager.handler.GlobalHandlerRollupRepository$Total(" +
+            "r.status, r.error, r.message, r.requestPath, sum(r.count), min(r.firstSeen), max(r.lastSeen)) " +
+            "from handler_exception_rollup r where r.lastSeen >= ?1 " +
+            "group by r.status, r.error, r.message, r.requestPath order by sum(r.count) desc")
+    List<Total> sumSince(ZonedDateTime since);
+
+    @Query("select r.id from handler_exception_rollup r where r.lastSeen < ?1")
+    List<UUID> findAllIdsLastSeenBefore(ZonedDateTime cutoff, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("delete from handler_exception_rollup r where r.id in ?1")
+    int deleteAllByIdIn(Collection<UUID> ids);
+}
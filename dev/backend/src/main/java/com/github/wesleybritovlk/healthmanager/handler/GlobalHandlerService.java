@@ -1,23 +1,274 @@
 package com.github.wesleybritovlk.healthmanager.handler;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import lombok.RequiredArgsConstructor;
+
+import com.github.wesleybritovlk.healthmanager.common.CommonRingBuffer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 
 public interface GlobalHandlerService {
-    GlobalHandler create(GlobalHandlerDTO dto);
+    /**
+     * Queues the error for the background writer, the request thread never
+     * waits on the database, a full buffer drops the error or waits for room
+     * depending on {@code app.handler.log.overflow}. In the aggregate mode the
+     * error is only counted in memory
+     */
+    void create(GlobalHandlerDTO dto);
+
+    /**
+     * Deletes the days of errors older than {@code app.handler.log.retention},
+     * and the rollups last seen before it, a bounded chunk of rows per
+     * transaction
+     */
+    void purgeExpired();
+
+    enum Mode {
+        RAW, AGGREGATE
+    }
+
+    enum Overflow {
+        DROP, BLOCK
+    }
+
+    @ConfigurationProperties("app.handler.log")
+    record LogProperties(Mode mode, int capacity, int batchSize, Duration flushInterval, Duration rollupInterval,
+            Overflow overflow, Duration retention) {
+    }
 }
 
+/**
+ * Errors go through a lock-free ring buffer to a single writer thread that
+ * inserts them in batches, one transaction each, the writer wakes up every
+ * flush interval or as soon as a batch is pending, and the buffer is flushed
+ * when the context shuts down. In the aggregate mode identical errors are
+ * counted per status, error, message and path with its ids replaced, and the
+ * writer inserts one rollup row per key every rollup interval. Outcomes are
+ * counted by the {@code handler.exception.log} metric
+ */
+@Slf4j
 @Service
-@Transactional
-@RequiredArgsConstructor
+@EnableConfigurationProperties(GlobalHandlerService.LogProperties.class)
 class GlobalHandlerServiceImpl implements GlobalHandlerService {
+    private static final long BLOCK_PARK_NANOS = 100_000;
+    private static final int PURGE_CHUNK_SIZE = 1_000;
+    /** UUID or numeric path segments */
+    private static final Pattern ID_SEGMENT = Pattern.compile(
+            "(?<=/)(?:\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12}|\\d+)(?=/|$)");
+
     private final GlobalHandlerRepository repository;
+    private final GlobalHandlerRollupRepository rollupRepository;
+    private final LogProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final CommonRingBuffer<GlobalHandler> buffer;
+    private final Thread writer;
+    private final Map<Key, Tally> tallies = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    private record Key(int status, String error, String message, String requestPath) {
+    }
+
+    /** Mutated inside the map compute, so under the lock of its bin */
+    private static final class Tally {
+        private long count = 1;
+        private ZonedDateTime firstSeen;
+        private ZonedDateTime lastSeen;
+
+        private Tally(ZonedDateTime seen) {
+            this.firstSeen = seen;
+            this.lastSeen = seen;
+        }
+
+        private Tally add(ZonedDateTime seen) {
+            count++;
+            if (seen.isBefore(firstSeen))
+                firstSeen = seen;
+            if (seen.isAfter(lastSeen))
+                lastSeen = seen;
+            return this;
+        }
+
+        private Tally merge(Tally other) {
+            count += other.count;
+            if (other.firstSeen.isBefore(firstSeen))
+                firstSeen = other.firstSeen;
+            if (other.lastSeen.isAfter(lastSeen))
+                lastSeen = other.lastSeen;
+            return this;
+        }
+    }
+
+    GlobalHandlerServiceImpl(GlobalHandlerRepository repository, GlobalHandlerRollupRepository rollupRepository,
+            LogProperties properties, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.rollupRepository = rollupRepository;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.buffer = meterRegistry.gauge("handler.exception.log.pending",
+                new CommonRingBuffer<GlobalHandler>(properties.capacity()), CommonRingBuffer::size);
+        this.writer = new Thread(this::write, "handler-exception-writer");
+        this.writer.setDaemon(true);
+    }
+
+    private void count(String result, int amount) {
+        meterRegistry.counter("handler.exception.log", "result", result).increment(amount);
+    }
+
+    /** Cuts the value to the length of its column, so one long message doesn't fail a batch */
+    static String truncate(Object value) {
+        String text = String.valueOf(value);
+        return text.length() > GlobalHandler.TEXT_LENGTH ? text.substring(0, GlobalHandler.TEXT_LENGTH) : text;
+    }
+
+    static String normalize(String requestPath) {
+        return requestPath == null ? "" : ID_SEGMENT.matcher(requestPath).replaceAll("{id}");
+    }
+
+    @Override
+    public void create(GlobalHandlerDTO dto) {
+        if (properties.mode() == Mode.AGGREGATE) {
+            var key = new Key(dto.status(), truncate(dto.error()), truncate(dto.message()),
+                    truncate(normalize(dto.request_path())));
+            tallies.compute(key,
+                    (k, tally) -> tally == null ? new Tally(dto.timestamp()) : tally.add(dto.timestamp()));
+            return;
+        }
+        var handler = GlobalHandler.builder().createdAt(dto.timestamp())
+                .bucket(dto.timestamp().withZoneSameInstant(ZoneOffset.UTC).toLocalDate()).status(dto.status())
+                .error(truncate(dto.error())).message(truncate(dto.message()))
+                .requestPath(truncate(dto.request_path())).build();
+        while (!buffer.offer(handler)) {
+            if (properties.overflow() == Overflow.DROP || !running) {
+                count("dropped", 1);
+                return;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        if (buffer.size() >= properties.batchSize())
+            LockSupport.unpark(writer);
+    }
+
+    @PostConstruct
+    void start() {
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        if (writer.isAlive())
+            writer.join();
+        while (flush() > 0)
+            ;
+        rollup();
+    }
+
+    private void write() {
+        long nextRollup = System.nanoTime() + properties.rollupInterval().toNanos();
+        while (running) {
+            if (System.nanoTime() - nextRollup >= 0) {
+                rollup();
+                nextRollup = System.nanoTime() + properties.rollupInterval().toNanos();
+            }
+            if (flush() < properties.batchSize())
+                LockSupport.parkNanos(properties.flushInterval().toNanos());
+        }
+    }
+
+    /**
+     * Moves every tally to a rollup row, errors counted meanwhile start a new
+     * tally. Tallies of a failed insert are merged back for the next rollup,
+     * unless the writer is stopping
+     */
+    private void rollup() {
+        var taken = new HashMap<Key, Tally>();
+        for (Key key : tallies.keySet()) {
+            Tally tally = tallies.remove(key);
+            if (tally != null)
+                taken.put(key, tally);
+        }
+        if (taken.isEmpty())
+            return;
+        var rows = taken.entrySet().stream().map(entry -> GlobalHandlerRollup.builder()
+                .status(entry.getKey().status()).error(entry.getKey().error()).message(entry.getKey().message())
+                .requestPath(entry.getKey().requestPath()).count(entry.getValue().count)
+                .firstSeen(entry.getValue().firstSeen).lastSeen(entry.getValue().lastSeen).build()).toList();
+        try {
+            rollupRepository.saveAll(rows);
+            count("rolled-up", rows.size());
+        } catch (RuntimeException e) {
+            if (running) {
+                taken.forEach((key, tally) -> tallies.merge(key, tally, Tally::merge));
+                log.warn("Failed to write {} error rollups, kept for the next rollup", rows.size(), e);
+            } else {
+                count("failed", rows.size());
+                log.warn("Failed to write {} error rollups on shutdown", rows.size(), e);
+            }
+        }
+    }
+
+    /**
+     * Writes one batch, a failed batch is retried one row at a time so a bad
+     * row only loses itself
+     */
+    private int flush() {
+        var batch = new ArrayList<GlobalHandler>(properties.batchSize());
+        int drained = buffer.drainTo(batch, properties.batchSize());
+        if (drained == 0)
+            return 0;
+        try {
+            repository.saveAll(batch);
+            count("written", drained);
+        } catch (RuntimeException e) {
+            int written = 0;
+            for (GlobalHandler handler : batch)
+                try {
+                    repository.save(handler);
+                    written++;
+                } catch (RuntimeException ignored) {
+                    // counted below, the batch failure is logged with its cause
+                }
+            count("written", written);
+            count("failed", drained - written);
+            log.warn("Failed to write a batch of {} errors, {} written one by one", drained, written, e);
+        }
+        return drained;
+    }
 
     @Override
-    public GlobalHandler create(GlobalHandlerDTO dto) {
-        return repository.save(GlobalHandler.builder().createdAt(dto.timestamp()).status(dto.status())
-                .error(String.valueOf(dto.error())).message(String.valueOf(dto.message()))
-                .requestPath(dto.request_path()).build());
+    @Scheduled(cron = "${app.handler.log.retention-cron}")
+    public void purgeExpired() {
+        ZonedDateTime cutoff = ZonedDateTime.now(ZoneOffset.UTC).minus(properties.retention());
+        for (LocalDate bucket : repository.findAllBucketsBefore(cutoff.toLocalDate())) {
+            List<UUID> ids;
+            while (!(ids = repository.findAllIdsByBucket(bucket, Limit.of(PURGE_CHUNK_SIZE))).isEmpty())
+                count("purged", repository.deleteAllByIdIn(ids));
+        }
+        List<UUID> rollupIds;
+        while (!(rollupIds = rollupRepository.findAllIdsLastSeenBefore(cutoff, Limit.of(PURGE_CHUNK_SIZE)))
+                .isEmpty())
+            rollupRepository.deleteAllByIdIn(rollupIds);
     }
 }
@@ -1,37 +1,64 @@
 package com.github.wesleybritovlk.healthmanager.app.customer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.wesleybritovlk.healthmanager.app.customer.Customer.Sex;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ImportReport;
 import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.Request;
 import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.Response;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.RiskResponse;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ScoreBucket;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ScoreDistribution;
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO;
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemService;
+import com.github.wesleybritovlk.healthmanager.common.CommonCache;
+import com.github.wesleybritovlk.healthmanager.common.CommonCursor;
+import com.github.wesleybritovlk.healthmanager.common.CommonJson;
 import com.github.wesleybritovlk.healthmanager.handler.GlobalHandlerException;
 
 @WebMvcTest(CustomerController.class)
@@ -48,11 +75,25 @@ class CustomerControllerTest {
         @MockBean
         private CustomerService service;
 
+        @MockBean
+        private CustomerImportService importService;
+
+        @MockBean
+        private HealthProblemService healthProblemService;
+
         @MockBean
         private GlobalHandlerException globalHandlerException;    
 
         @MockBean
-        private CacheManager cacheManager;
+        private CommonCache cache;
+
+        @BeforeEach
+        void setup() {
+                when(cache.json(any(), any(), any())).thenAnswer(
+                                invocation -> CommonJson.of(objectMapper, invocation.<Supplier<?>>getArgument(2).get()));
+                when(cache.listingJson(any(), any(), any())).thenAnswer(
+                                invocation -> CommonJson.of(objectMapper, invocation.<Supplier<?>>getArgument(2).get()));
+        }
 
         @Test
         void itShouldCreateCustomer_WithCustomerDTORequest() throws Exception {
@@ -80,6 +121,29 @@ class CustomerControllerTest {
                                 .andDo(print());
         }
 
+        @Test
+        void itShouldAnswerNotModified_ByCustomerVersionAlone() throws Exception {
+                UUID id = UUID.randomUUID();
+                when(service.findVersion(id)).thenReturn(7L);
+                mockMvc.perform(get("/api/customers/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+                                .andExpect(status().isNotModified())
+                                .andExpect(header().string(HttpHeaders.ETAG, "\"7\""))
+                                .andExpect(content().bytes(new byte[0]));
+                verify(service, never()).findById(any(UUID.class));
+
+                mockMvc.perform(get("/api/customers/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"6\""))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string(HttpHeaders.ETAG, "\"7\""));
+        }
+
+        @Test
+        void itShouldAnswerNotModified_ByListingGeneration() throws Exception {
+                when(cache.version(CommonCache.CUSTOMERS)).thenReturn("e.1");
+                mockMvc.perform(get("/api/customers").header(HttpHeaders.IF_NONE_MATCH, "\"e.1\""))
+                                .andExpect(status().isNotModified());
+                verify(service, never()).findAll(any(Pageable.class));
+        }
+
         @Test
         void itShouldGetAllCustomersResponses_byPageRequest() throws Exception {
                 List<Response> responses = List.of(
@@ -97,6 +161,130 @@ class CustomerControllerTest {
                                 .andDo(print());
         }
 
+        @Test
+        void itShouldGetAllCustomersGzipped_WhenAccepted() throws Exception {
+                List<Response> responses = IntStream.range(0, 20)
+                                .mapToObj(i -> new Response(UUID.randomUUID(), "foo" + i, LocalDate.parse("1997-05-23"),
+                                                Sex.MALE, BigDecimal.ZERO.setScale(2), Set.of()))
+                                .toList();
+                when(service.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(responses));
+                byte[] gzip = mockMvc.perform(get("/api/customers").header(HttpHeaders.ACCEPT_ENCODING, "gzip, br"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                                .andReturn().getResponse().getContentAsByteArray();
+
+                try (var json = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+                        assertThat(objectMapper.readTree(json).get("content").size()).isEqualTo(responses.size());
+                }
+                mockMvc.perform(get("/api/customers"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        }
+
+        @Test
+        void itShouldGetCustomersSlice_byCursor() throws Exception {
+                CommonCursor after = new CommonCursor(2, UUID.randomUUID());
+                List<Response> responses = List.of(new Response(UUID.randomUUID(), "fooM", LocalDate.parse("1997-05-23"),
+                                Sex.MALE, BigDecimal.ZERO.setScale(2), Set.of()));
+                when(service.findAllAfter(after, 1))
+                                .thenReturn(new CommonCursor.Slice<>(responses, 1, "next"));
+                mockMvc.perform(get("/api/customers").param("after", after.encode()).param("size", "1"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content.size()").value(1))
+                                .andExpect(jsonPath("$.next").value("next"))
+                                .andDo(print());
+        }
+
+        @Test
+        void itShouldSearchCustomersByName() throws Exception {
+                List<Response> responses = List.of(new Response(UUID.randomUUID(), "fooM", LocalDate.parse("1997-05-23"),
+                                Sex.MALE, BigDecimal.ZERO.setScale(2), Set.of()));
+                when(service.search(eq("foo"), any(Pageable.class))).thenReturn(new PageImpl<>(responses));
+                mockMvc.perform(get("/api/customers/search").param("name", "foo"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content[0].full_name").value("fooM"))
+                                .andDo(print());
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void itShouldExportCustomers_AsNdjson() throws Exception {
+                Response foo = new Response(UUID.randomUUID(), "foo", LocalDate.parse("1997-05-23"), Sex.MALE,
+                                BigDecimal.ZERO.setScale(2), Set.of());
+                Response bar = new Response(UUID.randomUUID(), "bar", LocalDate.parse("1990-01-02"), Sex.FEMALE,
+                                BigDecimal.valueOf(14.18), Set.of());
+                doAnswer(invocation -> {
+                        Consumer<Response> sink = invocation.getArgument(0);
+                        sink.accept(foo);
+                        sink.accept(bar);
+                        return null;
+                }).when(service).export(any(Consumer.class));
+                MvcResult result = mockMvc.perform(get("/api/customers/export"))
+                                .andExpect(request().asyncStarted()).andReturn();
+                String body = mockMvc.perform(asyncDispatch(result))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                                .andReturn().getResponse().getContentAsString();
+                assertThat(body.lines().toList()).hasSize(2);
+                assertThat(objectMapper.readValue(body.lines().toList().get(1), Response.class)).isEqualTo(bar);
+        }
+
+        @Test
+        void itShouldImportCustomers_FromCsv() throws Exception {
+                String csv = "full_name,date_birth,sex\nfoo,1999-12-01,MALE\n";
+                when(importService.importAll(any(InputStream.class), any(MediaType.class)))
+                                .thenReturn(new ImportReport(1, 0, List.of(), false));
+                mockMvc.perform(post("/api/customers/import").contentType("text/csv").content(csv))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.message").value("Customers import finished!"))
+                                .andExpect(jsonPath("$.content.imported").value(1))
+                                .andDo(print());
+                mockMvc.perform(post("/api/customers/import").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                                .andExpect(status().isUnsupportedMediaType());
+        }
+
+        @Test
+        void itShouldGetTopRiskCustomers_byK() throws Exception {
+                List<RiskResponse> responses = List.of(
+                                new RiskResponse(UUID.randomUUID(), "fooHigh", BigDecimal.valueOf(76.85)),
+                                new RiskResponse(UUID.randomUUID(), "fooLow", BigDecimal.valueOf(14.18)));
+                when(service.findTopRisk(2)).thenReturn(responses);
+                mockMvc.perform(get("/api/customers/top-risk").param("k", "2"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content.size()").value(2))
+                                .andExpect(jsonPath("$.content[0].full_name").value("fooHigh"))
+                                .andDo(print());
+        }
+
+        @Test
+        void itShouldGetScoreDistribution() throws Exception {
+                ScoreDistribution distribution = new ScoreDistribution(
+                                List.of(new ScoreBucket(BigInteger.TWO, BigDecimal.valueOf(31.00), 5)),
+                                Map.of(Sex.FEMALE, 5L));
+                when(service.findScoreDistribution()).thenReturn(distribution);
+                mockMvc.perform(get("/api/customers/score-distribution"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content.scores[0].customers").value(5))
+                                .andExpect(jsonPath("$.content.sex.FEMALE").value(5))
+                                .andDo(print());
+        }
+
+        @Test
+        void itShouldCreateHealthProblemsBatch_ForCustomer() throws Exception {
+                UUID id = UUID.randomUUID();
+                var request = new HealthProblemDTO.BatchRequest(List.of(
+                                new HealthProblemDTO.BatchItem("asthma", BigInteger.ONE),
+                                new HealthProblemDTO.BatchItem("diabetes", BigInteger.TWO)));
+                when(healthProblemService.createAll(eq(id), any(HealthProblemDTO.BatchRequest.class)))
+                                .thenReturn(List.of(Map.of("id", UUID.randomUUID()), Map.of("id", UUID.randomUUID())));
+                mockMvc.perform(post("/api/customers/{id}/health-problems:batch", id)
+                                .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isCreated())
+                                .andExpect(jsonPath("$.content.size()").value(2))
+                                .andDo(print());
+        }
+
         @Test
         void itShouldUpdateCustomer_WithCustomerIdAndCustomerDTORequest() throws Exception {
                 UUID id = UUID.randomUUID();
@@ -0,0 +1,156 @@
+package com.github.wesleybritovlk.healthmanager.app.customer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ImportReport;
+import com.github.wesleybritovlk.healthmanager.common.CommonCache;
+
+import jakarta.validation.Validation;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerImportServiceTest {
+        private CustomerImportService importService;
+        @Mock
+        private CustomerRepository repository;
+        @Mock
+        private CustomerRiskBoard riskBoard;
+        @Mock
+        private CustomerNameIndex nameIndex;
+        @Mock
+        private CommonCache cache;
+
+        @BeforeEach
+        void setup() {
+                importService = new CustomerImportServiceImpl(repository,
+                                new CustomerMapperImpl(new CustomerScoreImpl()), riskBoard, nameIndex, cache,
+                                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                                Validation.buildDefaultValidatorFactory().getValidator(),
+                                JsonMapper.builder().findAndAddModules().build());
+        }
+
+        private static InputStream body(String text) {
+                return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void itShouldImportNdjson_WithHealthProblemsAndSeveritySum() {
+                String ndjson = """
+                                {"full_name":"foo","date_birth":"1999-12-01","sex":"MALE","health_problems":[{"problem_name":"asthma","severity":1},{"problem_name":"diabetes","severity":2}]}
+
+                                {"full_name":"bar","date_birth":"2000-01-20","sex":"FEMALE"}
+                                """;
+                ArgumentCaptor<List<Customer>> saved = ArgumentCaptor.forClass(List.class);
+
+                ImportReport report = importService.importAll(body(ndjson), MediaType.APPLICATION_NDJSON);
+
+                assertThat(report.imported()).isEqualTo(2);
+                assertThat(report.errors()).isEmpty();
+                verify(repository, times(1)).saveAll(saved.capture());
+                verify(repository, times(1)).flush();
+                Customer foo = saved.getValue().get(0);
+                assertThat(foo.getHealthProblems()).hasSize(2);
+                assertThat(foo.getSeveritySum()).isEqualTo(BigInteger.valueOf(3));
+                verify(nameIndex, times(1)).put(foo.getId(), "foo");
+                verify(cache, times(1)).bump(CommonCache.CUSTOMERS);
+                verify(cache, times(1)).bump(CommonCache.HEALTH_PROBLEMS);
+        }
+
+        @Test
+        void itShouldImportCsv_AndReportInvalidRows() {
+                String csv = """
+                                sex,full_name,date_birth,health_problems
+                                MALE,"Foo, Jr",1999-12-01,asthma:1;diabetes:2
+                                FEMALE,fo,2000-01-20,
+                                FEMALE,bar,20-01-2000,
+                                UNKNOWN,baz,2000-01-20,
+                                MALE,qux,2000-01-20,asthma:3
+                                MALE,quux,2000-01-20,asthma:1;asthma:2
+                                """;
+
+                ImportReport report = importService.importAll(body(csv), MediaType.valueOf("text/csv"));
+
+                assertThat(report.imported()).isEqualTo(1);
+                assertThat(report.failed()).isEqualTo(5);
+                assertThat(report.truncated()).isFalse();
+                assertThat(report.errors()).extracting(CustomerDTO.ImportError::line).containsExactly(3L, 4L, 5L, 6L,
+                                7L);
+                assertThat(report.errors().get(0).message())
+                                .isEqualTo("Name must be greater than 3 and up to 50 characters");
+                assertThat(report.errors().get(4).message())
+                                .isEqualTo("This Health Problem already exists in this Customer");
+                verify(repository, times(1)).saveAll(argThat(customers -> ((List<?>) customers).size() == 1));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void itShouldImportInChunks_AndRetryFailedChunkRowByRow() {
+                String ndjson = IntStream.range(0, CustomerImportService.CHUNK_SIZE + 1)
+                                .mapToObj(i -> "{\"full_name\":\"foo" + i
+                                                + "\",\"date_birth\":\"1999-12-01\",\"sex\":\"MALE\"}")
+                                .collect(Collectors.joining("\n"));
+                lenient().doThrow(new DataIntegrityViolationException("chunk")).when(repository)
+                                .saveAll(argThat(customers -> ((List<?>) customers).size() > 1));
+                lenient().doThrow(new DataIntegrityViolationException("foo7 rejected")).when(repository)
+                                .saveAll(argThat(customers -> ((List<Customer>) customers).size() == 1
+                                                && ((List<Customer>) customers).get(0).getName().equals("foo7")));
+
+                ImportReport report = importService.importAll(body(ndjson), MediaType.APPLICATION_NDJSON);
+
+                assertThat(report.imported()).isEqualTo(CustomerImportService.CHUNK_SIZE);
+                assertThat(report.errors()).containsExactly(new CustomerDTO.ImportError(8, "foo7 rejected"));
+                verify(repository, times(CustomerImportService.CHUNK_SIZE + 2)).saveAll(anyList());
+        }
+
+        @Test
+        void itShouldCountEveryFailedRow_ButListOnlyTheFirstErrors() {
+                String csv = "full_name,date_birth,sex\n" + IntStream.range(0, CustomerImportService.MAX_ERRORS + 5)
+                                .mapToObj(i -> "fo,1999-12-01,MALE").collect(Collectors.joining("\n"));
+
+                ImportReport report = importService.importAll(body(csv), MediaType.valueOf("text/csv"));
+
+                assertThat(report.imported()).isZero();
+                assertThat(report.failed()).isEqualTo(CustomerImportService.MAX_ERRORS + 5);
+                assertThat(report.errors()).hasSize(CustomerImportService.MAX_ERRORS);
+                assertThat(report.errors().get(0).line()).isEqualTo(2);
+                assertThat(report.truncated()).isTrue();
+        }
+
+        @Test
+        void itShouldRejectUnsupportedContentAndCsvWithoutHeader() {
+                assertThatThrownBy(() -> importService.importAll(body(""), MediaType.APPLICATION_JSON))
+                                .isInstanceOf(ResponseStatusException.class)
+                                .hasMessageContaining("Import accepts only 'application/x-ndjson' or 'text/csv'");
+                assertThatThrownBy(() -> importService.importAll(body("name,sex\nfoo,MALE"), MediaType.valueOf("text/csv")))
+                                .isInstanceOf(ResponseStatusException.class)
+                                .hasMessageContaining("CSV header must have");
+        }
+}
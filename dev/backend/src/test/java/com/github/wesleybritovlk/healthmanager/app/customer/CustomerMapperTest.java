@@ -2,36 +2,27 @@ package com.github.wesleybritovlk.healthmanager.app.customer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.time.LocalDate;
-import java.util.Set;
+import java.util.List;
 import java.util.TreeSet;
 import java.util.UUID;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.github.wesleybritovlk.healthmanager.app.customer.Customer.Sex;
 import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.Request;
 import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.Response;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.RiskResponse;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ScoreBucket;
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblem;
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO;
-import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemMapper;;
 
-@ExtendWith(MockitoExtension.class)
 class CustomerMapperTest {
         private CustomerMapper mapper;
-        @Mock
-        private HealthProblemMapper healthProblemMapper;
 
         private Request request;
         private Customer customer;
@@ -39,11 +30,12 @@ class CustomerMapperTest {
         private HealthProblemDTO.Response responseProblem;
         private HealthProblemDTO.Response responseProblem1;
         private HealthProblemDTO.Response responseProblem2;
-        private Customer customerFull;
+        private CustomerRepository.Row row;
+        private CustomerRepository.Row rowFull;
 
         @BeforeEach
         void setup() {
-                mapper = new CustomerMapperImpl(healthProblemMapper);
+                mapper = new CustomerMapperImpl(new CustomerScoreImpl());
                 request = new Request("foo", LocalDate.parse("1998-07-23"), Sex.MALE);
                 customer = Customer.builder().id(UUID.randomUUID()).name("fooResponse")
                                 .dateBirth(LocalDate.parse("1998-06-20"))
@@ -62,9 +54,10 @@ class CustomerMapperTest {
                                 "test2", BigInteger.TWO);
                 responseProblem2 = new HealthProblemDTO.Response(problem2.getId(), customerId,
                                 "test3", BigInteger.ONE);
-                customerFull = Customer.builder().id(customerId).name("fooFull")
-                                .dateBirth(LocalDate.parse("2001-11-09"))
-                                .sex(Sex.FEMALE).healthProblems(Set.of(problem, problem1, problem2)).build();
+                row = new CustomerRepository.Row(customer.getId(), "fooResponse", LocalDate.parse("1998-06-20"),
+                                Sex.NOT_KNOW, BigInteger.valueOf(4));
+                rowFull = new CustomerRepository.Row(customerId, "fooFull", LocalDate.parse("2001-11-09"),
+                                Sex.FEMALE, BigInteger.valueOf(4));
         }
 
         @Test
@@ -98,8 +91,8 @@ class CustomerMapperTest {
         }
 
         @Test
-        void itShouldMapCustomerResponse_WithOnlyCustomer() {
-                Response response = mapper.toResponse(customer, BigInteger.valueOf(4));
+        void itShouldMapCustomerResponse_WithOnlyCustomerRow() {
+                Response response = mapper.toResponse(row, List.of());
                 assertThat(response).isNotNull();
                 assertThat(response.id()).isEqualTo(customer.getId());
                 assertThat(response.full_name()).isEqualTo("fooResponse");
@@ -112,27 +105,26 @@ class CustomerMapperTest {
 
         @Test       
         void itShouldMapCustomerResponse_WithSeveritySumZero() {
-                Customer customer0 = Customer.builder().name("zero").dateBirth(LocalDate.parse("1998-07-23")).sex(Sex.NOT_KNOW).healthProblems(new TreeSet<>()).build();
-                Response response = mapper.toResponse(customer0, BigInteger.ZERO);
+                var row0 = new CustomerRepository.Row(UUID.randomUUID(), "zero", LocalDate.parse("1998-07-23"),
+                                Sex.NOT_KNOW, BigInteger.ZERO);
+                Response response = mapper.toResponse(row0, List.of());
                 assertThat(response).isNotNull();
                 assertThat(response.score()).isEqualTo(BigDecimal.ZERO.setScale(2));
         }
 
         @Test
-        void itShouldMapCustomerResponse_WithCustomerAndHealthProblems() {
-                when(healthProblemMapper.toResponse(any(HealthProblem.class))).thenReturn(responseProblem,
-                                responseProblem1,
-                                responseProblem2);
-                Response response = mapper.toResponse(customerFull, BigInteger.valueOf(4));
-                verify(healthProblemMapper, times(3)).toResponse(any(HealthProblem.class));
+        void itShouldMapCustomerResponse_WithCustomerRowAndHealthProblems() {
+                Response response = mapper.toResponse(rowFull, List.of(responseProblem, responseProblem1,
+                                responseProblem2));
                 assertThat(response).isNotNull();
-                assertThat(response.id()).isEqualTo(customerFull.getId());
+                assertThat(response.id()).isEqualTo(rowFull.id());
                 assertThat(response.full_name()).isEqualTo("fooFull");
                 assertThat(response.date_birth()).isEqualTo(LocalDate.parse("2001-11-09"));
                 assertThat(response.sex()).isEqualTo(Sex.FEMALE);
                 assertThat(response.score()).isEqualTo(BigDecimal.valueOf(76.85));
                 assertThat(response.health_problems()).isNotEmpty();
                 assertThat(response.health_problems()).hasSize(3);
+                assertThat(response.health_problems()).first().isEqualTo(responseProblem1);
         }
 
         @Test
@@ -140,4 +132,22 @@ class CustomerMapperTest {
                 assertThat(mapper.toResponse(UUID.randomUUID(), "foo")).containsKeys("id", "full_name");
                 assertThat(mapper.toResponse(UUID.randomUUID())).containsKeys("id");
         }
+
+        @Test
+        void itShouldMapCustomerRiskResponse_WithRiskBoardEntry() {
+                CustomerRiskBoard.Entry entry = new CustomerRiskBoard.Entry(customer.getId(), "fooRisk",
+                                BigInteger.valueOf(4));
+                RiskResponse response = mapper.toRiskResponse(entry);
+                assertThat(response.id()).isEqualTo(customer.getId());
+                assertThat(response.full_name()).isEqualTo("fooRisk");
+                assertThat(response.score()).isEqualTo(BigDecimal.valueOf(76.85));
+        }
+
+        @Test
+        void itShouldMapScoreBucket_WithSeverityCount() {
+                ScoreBucket bucket = mapper.toScoreBucket(new CustomerRepository.SeverityCount(BigInteger.valueOf(4), 7L));
+                assertThat(bucket.severity_sum()).isEqualTo(BigInteger.valueOf(4));
+                assertThat(bucket.score()).isEqualTo(BigDecimal.valueOf(76.85));
+                assertThat(bucket.customers()).isEqualTo(7);
+        }
 }
@@ -0,0 +1,102 @@
+package com.github.wesleybritovlk.healthmanager.app.customer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerNameIndex.Entry;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerNameIndexTest {
+        private CustomerNameIndex nameIndex;
+        @Mock
+        private CustomerRepository repository;
+
+        private UUID mariaId;
+        private UUID anaMariaId;
+        private UUID marianaId;
+        private UUID rosemaryId;
+
+        @BeforeEach
+        void setup() {
+                nameIndex = new CustomerNameIndexImpl(repository);
+                mariaId = UUID.randomUUID();
+                anaMariaId = UUID.randomUUID();
+                marianaId = UUID.randomUUID();
+                rosemaryId = UUID.randomUUID();
+                when(repository.findAllNameEntries()).thenReturn(List.of(
+                                new Entry(anaMariaId, "Ana Maria"),
+                                new Entry(marianaId, "Mariana Souza"),
+                                new Entry(rosemaryId, "Rosemary"),
+                                new Entry(mariaId, "MARIA")));
+                nameIndex.reload();
+        }
+
+        @Test
+        void itShouldSearchSubstrings_IgnoringCase() {
+                assertThat(nameIndex.search("ari")).containsExactlyInAnyOrder(mariaId, anaMariaId, marianaId);
+                assertThat(nameIndex.search("SOUZA")).containsExactly(marianaId);
+                assertThat(nameIndex.search("xyz")).isEmpty();
+        }
+
+        @Test
+        void itShouldRankExactThenPrefixThenWordPrefixMatches() {
+                assertThat(nameIndex.search("maria")).containsExactly(mariaId, marianaId, anaMariaId);
+                assertThat(nameIndex.search("mar")).containsExactly(mariaId, marianaId, anaMariaId, rosemaryId);
+        }
+
+        @Test
+        void itShouldNotMatchScatteredTrigrams() {
+                UUID scatteredId = UUID.randomUUID();
+                nameIndex.put(scatteredId, "Abcd Bcde");
+
+                assertThat(nameIndex.search("abcde")).isEmpty();
+                assertThat(nameIndex.search("bcd")).containsExactly(scatteredId);
+        }
+
+        @Test
+        void itShouldPutRenameAndRemoveCustomers() {
+                UUID quxId = UUID.randomUUID();
+                nameIndex.put(quxId, "Marilia");
+                nameIndex.put(mariaId, "Joana");
+                nameIndex.remove(marianaId);
+
+                assertThat(nameIndex.search("mari")).containsExactly(quxId, anaMariaId);
+                assertThat(nameIndex.search("joa")).containsExactly(mariaId);
+        }
+
+        @Test
+        void itShouldDropRemovedCustomers_OnReload() {
+                when(repository.findAllNameEntries()).thenReturn(List.of(new Entry(rosemaryId, "Rosemary")));
+
+                nameIndex.reload();
+
+                assertThat(nameIndex.search("mar")).containsExactly(rosemaryId);
+        }
+
+        @Test
+        void itShouldRejectQueries_ShorterThanAGram() {
+                assertThatThrownBy(() -> nameIndex.search("ma")).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        void itShouldRereadOnlyTheGivenCustomers() {
+                UUID quxId = UUID.randomUUID();
+                when(repository.findAllNameEntriesByIdIn(List.of(mariaId, marianaId, quxId))).thenReturn(List.of(
+                                new Entry(mariaId, "Joana"), new Entry(quxId, "Marilia")));
+
+                nameIndex.reload(List.of(mariaId, marianaId, quxId));
+
+                assertThat(nameIndex.search("mari")).containsExactly(quxId, anaMariaId);
+                assertThat(nameIndex.search("joa")).containsExactly(mariaId);
+        }
+}
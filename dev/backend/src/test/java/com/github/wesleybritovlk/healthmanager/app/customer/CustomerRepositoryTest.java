@@ -10,24 +10,35 @@ import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblem;
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO;
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemRepository;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class CustomerRepositoryTest {
         private final CustomerRepository repository;
         private final HealthProblemRepository healthProblemRepo;
+        private final TestEntityManager entityManager;
 
         @Autowired
-        public CustomerRepositoryTest(CustomerRepository repository, HealthProblemRepository healthProblemRepo) {
+        public CustomerRepositoryTest(CustomerRepository repository, HealthProblemRepository healthProblemRepo,
+                        TestEntityManager entityManager) {
                 this.repository = repository;
                 this.healthProblemRepo = healthProblemRepo;
+                this.entityManager = entityManager;
         }
 
         @BeforeEach
@@ -58,13 +69,37 @@ class CustomerRepositoryTest {
                 healthProblemRepo.saveAllAndFlush(Set.of());
         }
 
+        private CustomerRepository.Row findByName(String name) {
+                return repository.findAllRowsByNameLike(name, PageRequest.of(0, 1)).getContent().get(0);
+        }
+
         @Test
         void itShouldFindAllCustomersByName_WithLike() {
-                List<Customer> customers = repository.findAllByNameLike("FOO");
+                Page<CustomerRepository.Row> customers = repository.findAllRowsByNameLike("FOO", PageRequest.of(0, 10));
+
+                assertThat(customers.getTotalElements()).isEqualTo(2);
+                assertThat(customers.getContent().get(0).name()).isEqualTo("foO");
+                assertThat(customers.getContent().get(1).name()).isEqualTo("fOo1");
+        }
+
+        @Test
+        void itShouldMatchEscapedWildcards_Literally() {
+                assertThat(repository.findAllRowsByNameLike("\\%", PageRequest.of(0, 10))).isEmpty();
+                assertThat(repository.findAllRowsByNameLike("\\_", PageRequest.of(0, 10))).isEmpty();
+                assertThat(repository.findAllRowsByNameLike("oo", PageRequest.of(0, 10)).getContent())
+                                .extracting(CustomerRepository.Row::name).containsExactly("foO", "fOo1");
+                assertThat(repository.findAllRowsByNameLike("in", PageRequest.of(0, 10)).getContent())
+                                .extracting(CustomerRepository.Row::name).containsExactly("join", "join1");
+        }
 
-                assertThat(customers).hasSize(2);
-                assertThat(customers.get(0).getName()).isEqualTo("foO");
-                assertThat(customers.get(1).getName()).isEqualTo("fOo1");
+        @Test
+        void itShouldFindCustomerRowsAndNames_ById() {
+                List<CustomerNameIndex.Entry> names = repository.findAllNameEntries();
+                UUID joinId = names.stream().filter(entry -> entry.name().equals("join")).findFirst().get().id();
+
+                assertThat(names).hasSize(4);
+                assertThat(repository.findAllRowsByIdIn(List.of(joinId))).extracting(CustomerRepository.Row::name)
+                                .containsExactly("join");
         }
 
         @Test
@@ -94,4 +129,115 @@ class CustomerRepositoryTest {
 
                 assertThat(repository.findById(oldCustomer.getId())).isEmpty();
         }
+
+        @Test
+        void itShouldAddSeveritySum_AndReconcileFromHealthProblems() {
+                CustomerRepository.Row customer = findByName("join1");
+                UUID customerId = customer.id();
+
+                repository.addSeveritySum(customerId, 3L);
+                assertThat(repository.findById(customerId).get().getSeveritySum()).isEqualTo(BigInteger.valueOf(3));
+                assertThat(repository.findVersionById(customerId)).contains(1L);
+
+                assertThat(repository.reconcileSeveritySum()).isEqualTo(2);
+                assertThat(repository.findById(customerId).get().getSeveritySum()).isEqualTo(BigInteger.TWO);
+                assertThat(repository.findVersionById(customerId)).contains(2L);
+                assertThat(findByName("join").severitySum())
+                                .isEqualTo(BigInteger.valueOf(3));
+        }
+
+        @Test
+        void itShouldBumpVersion_WithoutTouchingTheOtherColumns() {
+                Customer customer = repository.findById(findByName("join").id()).get();
+
+                repository.bumpVersion(customer.getId());
+
+                Customer bumped = repository.findById(customer.getId()).get();
+                assertThat(bumped.getVersion()).isEqualTo(customer.getVersion() + 1);
+                assertThat(bumped.getName()).isEqualTo(customer.getName());
+                assertThat(repository.findVersionById(UUID.randomUUID())).isEmpty();
+        }
+
+        @Test
+        void itShouldFindCustomersPage_OrderedBySeveritySum() {
+                repository.reconcileSeveritySum();
+
+                Page<CustomerRepository.Row> page = repository.findAllRows(PageRequest.of(0, 3));
+
+                assertThat(page.getTotalElements()).isEqualTo(4);
+                assertThat(page.getContent()).extracting(CustomerRepository.Row::name).startsWith("join", "join1");
+                assertThat(repository.findAllRows(PageRequest.of(1, 3)).getContent())
+                                .hasSize(1).extracting(CustomerRepository.Row::severitySum).containsExactly(BigInteger.ZERO);
+        }
+
+        @Test
+        void itShouldFindAllRiskEntries() {
+                repository.reconcileSeveritySum();
+
+                List<CustomerRiskBoard.Entry> entries = repository.findAllRiskEntries();
+
+                assertThat(entries).hasSize(4);
+                assertThat(entries).extracting(CustomerRiskBoard.Entry::name)
+                                .containsExactlyInAnyOrder("foO", "fOo1", "join", "join1");
+                assertThat(entries).filteredOn(entry -> entry.name().equals("join"))
+                                .extracting(CustomerRiskBoard.Entry::severitySum).containsExactly(BigInteger.valueOf(3));
+        }
+
+        @Test
+        void itShouldSeekCustomers_AfterSeveritySumAndId() {
+                repository.reconcileSeveritySum();
+                List<CustomerRepository.Row> first = repository.findAllRows(Limit.of(2));
+                CustomerRepository.Row last = first.get(1);
+
+                List<CustomerRepository.Row> next = repository.findAllRowsAfter(last.severitySum(), last.id(),
+                                Limit.of(10));
+
+                assertThat(first).extracting(CustomerRepository.Row::name).containsExactly("join", "join1");
+                assertThat(next).hasSize(2).extracting(CustomerRepository.Row::severitySum)
+                                .containsOnly(BigInteger.ZERO);
+                assertThat(repository.findAllRowsAfter(BigInteger.ZERO, next.get(0).id(), Limit.of(10)))
+                                .containsExactly(next.get(1));
+        }
+
+        @Test
+        void itShouldStreamAllCustomerRows() {
+                try (Stream<CustomerRepository.Row> rows = repository.streamAllRows()) {
+                        assertThat(rows.map(CustomerRepository.Row::name))
+                                        .containsExactlyInAnyOrder("foO", "fOo1", "join", "join1");
+                }
+        }
+
+        @Test
+        void itShouldCountCustomers_BySeveritySumAndSex() {
+                repository.reconcileSeveritySum();
+
+                assertThat(repository.countBySeveritySum()).containsExactly(
+                                new CustomerRepository.SeverityCount(BigInteger.ZERO, 2L),
+                                new CustomerRepository.SeverityCount(BigInteger.TWO, 1L),
+                                new CustomerRepository.SeverityCount(BigInteger.valueOf(3), 1L));
+                assertThat(repository.countBySex()).hasSize(4)
+                                .contains(new CustomerRepository.SexCount(Customer.Sex.MALE, 1L));
+        }
+
+        @Test
+        void itShouldLoadCustomerRowsWithHealthProblems_WithoutHydratingEntities() {
+                Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                                .unwrap(SessionFactory.class).getStatistics();
+                UUID joinId = findByName("join").id();
+                entityManager.clear();
+                statistics.clear();
+
+                List<UUID> ids = repository.findAllRows(Limit.of(10)).stream().map(CustomerRepository.Row::id).toList();
+                assertThat(healthProblemRepo.findAllResponsesByCustomerIdIn(ids)).hasSize(3);
+                assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+                assertThat(statistics.getEntityLoadCount()).isZero();
+
+                CustomerRepository.Row join = repository.findRowById(joinId).get();
+                assertThat(join.name()).isEqualTo("join");
+                assertThat(join.sex()).isEqualTo(Customer.Sex.FEMALE);
+                assertThat(healthProblemRepo.findAllResponsesByCustomerIdIn(List.of(joinId)))
+                                .extracting(HealthProblemDTO.Response::problem_name)
+                                .containsExactlyInAnyOrder("test", "test2");
+                assertThat(statistics.getEntityLoadCount()).isZero();
+        }
 }
@@ -0,0 +1,87 @@
+package com.github.wesleybritovlk.healthmanager.app.customer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerRiskBoard.Entry;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerRiskBoardTest {
+        private CustomerRiskBoard riskBoard;
+        @Mock
+        private CustomerRepository repository;
+
+        private UUID fooId;
+        private UUID barId;
+        private UUID bazId;
+
+        @BeforeEach
+        void setup() {
+                riskBoard = new CustomerRiskBoardImpl(repository);
+                fooId = UUID.randomUUID();
+                barId = UUID.randomUUID();
+                bazId = UUID.randomUUID();
+                when(repository.findAllRiskEntries()).thenReturn(List.of(
+                                new Entry(fooId, "foo", BigInteger.ONE),
+                                new Entry(barId, "bar", BigInteger.valueOf(4)),
+                                new Entry(bazId, "baz", BigInteger.TWO)));
+                riskBoard.reload();
+        }
+
+        @Test
+        void itShouldReturnTopK_OrderedBySeveritySum() {
+                assertThat(riskBoard.top(2)).extracting(Entry::name).containsExactly("bar", "baz");
+                assertThat(riskBoard.top(10)).hasSize(3);
+        }
+
+        @Test
+        void itShouldReorder_WhenSeveritySumChanges() {
+                riskBoard.add(fooId, 5);
+                riskBoard.add(barId, -3);
+
+                assertThat(riskBoard.top(3)).extracting(Entry::name).containsExactly("foo", "baz", "bar");
+                assertThat(riskBoard.top(1).get(0).severitySum()).isEqualTo(BigInteger.valueOf(6));
+        }
+
+        @Test
+        void itShouldPutRenameAndRemoveCustomers() {
+                UUID quxId = UUID.randomUUID();
+                riskBoard.put(quxId, "qux", BigInteger.ZERO);
+                riskBoard.rename(barId, "barRenamed");
+                riskBoard.remove(bazId);
+
+                assertThat(riskBoard.top(10)).extracting(Entry::name).containsExactly("barRenamed", "foo", "qux");
+                assertThat(riskBoard.top(1).get(0).severitySum()).isEqualTo(BigInteger.valueOf(4));
+        }
+
+        @Test
+        void itShouldDropRemovedCustomers_OnReload() {
+                when(repository.findAllRiskEntries()).thenReturn(List.of(new Entry(fooId, "foo", BigInteger.TWO)));
+
+                riskBoard.reload();
+
+                assertThat(riskBoard.top(10)).containsExactly(new Entry(fooId, "foo", BigInteger.TWO));
+        }
+
+        @Test
+        void itShouldRereadOnlyTheGivenCustomers() {
+                UUID quxId = UUID.randomUUID();
+                when(repository.findAllRiskEntriesByIdIn(List.of(fooId, barId, quxId))).thenReturn(List.of(
+                                new Entry(fooId, "fooRenamed", BigInteger.TEN),
+                                new Entry(quxId, "qux", BigInteger.ZERO)));
+
+                riskBoard.reload(List.of(fooId, barId, quxId));
+
+                assertThat(riskBoard.top(10)).extracting(Entry::name).containsExactly("fooRenamed", "baz", "qux");
+        }
+}
@@ -0,0 +1,84 @@
+package com.github.wesleybritovlk.healthmanager.app.customer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.sun.management.ThreadMXBean;
+
+class CustomerScoreTest {
+        private CustomerScore score;
+
+        @BeforeEach
+        void setup() {
+                score = new CustomerScoreImpl();
+        }
+
+        @Test
+        void itShouldMatchComputedScore_ForEverySeveritySum() {
+                for (int sum = 0; sum < 5000; sum++)
+                        assertThat(score.of(BigInteger.valueOf(sum))).isEqualTo(CustomerScoreImpl.compute(sum));
+                assertThat(score.of(BigInteger.ZERO)).isEqualTo(BigDecimal.ZERO.setScale(2));
+                assertThat(score.of(BigInteger.valueOf(4))).isEqualTo(BigDecimal.valueOf(76.85));
+        }
+
+        @Test
+        void itShouldReturnCachedInstances_AfterTableGrows() {
+                BigDecimal outlier = score.of(BigInteger.valueOf(500));
+                assertThat(score.of(BigInteger.valueOf(500))).isSameAs(outlier);
+                assertThat(score.of(BigInteger.TWO)).isSameAs(score.of(BigInteger.TWO));
+        }
+
+        /**
+         * Maps a million customer rows to responses with the score table and
+         * with the score computed per row, as the mapper did before, enabled
+         * with {@code -Dbenchmark=true}
+         */
+        @Test
+        @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+        void benchmarkToResponse_AgainstComputedScore() {
+                Random random = new Random(42);
+                CustomerRepository.Row[] rows = new CustomerRepository.Row[1_000_000];
+                for (int row = 0; row < rows.length; row++)
+                        rows[row] = new CustomerRepository.Row(UUID.randomUUID(), "customer" + row,
+                                        LocalDate.of(1990, 1, 1), Customer.Sex.NOT_KNOW,
+                                        BigInteger.valueOf(random.nextInt(9)));
+                var computed = new CustomerMapperImpl(sum -> CustomerScoreImpl.compute(sum.intValue()));
+                var table = new CustomerMapperImpl(score);
+                for (int warmup = 0; warmup < 5; warmup++) {
+                        run("computed", rows, computed, false);
+                        run("table", rows, table, false);
+                }
+                run("computed", rows, computed, true);
+                run("table", rows, table, true);
+        }
+
+        private static void run(String name, CustomerRepository.Row[] rows, CustomerMapper mapper, boolean report) {
+                var threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+                long threadId = Thread.currentThread().getId();
+                long bytes = threads.getThreadAllocatedBytes(threadId);
+                long start = System.nanoTime();
+                var responses = new CustomerDTO.Response[rows.length];
+                int blackhole = 0;
+                for (int row = 0; row < rows.length; row++) {
+                        responses[row] = mapper.toResponse(rows[row], List.of());
+                        blackhole += responses[row].score().scale();
+                }
+                long elapsed = System.nanoTime() - start;
+                long allocated = threads.getThreadAllocatedBytes(threadId) - bytes;
+                if (report)
+                        System.out.printf("%s: %d rows in %d ms, %.1f ns/row, %d bytes allocated (%d)%n", name,
+                                        rows.length, elapsed / 1_000_000, (double) elapsed / rows.length, allocated,
+                                        blackhole);
+        }
+}
@@ -1,25 +1,33 @@
 package com.github.wesleybritovlk.healthmanager.app.customer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.server.ResponseStatusException;
@@ -27,8 +35,14 @@ import org.springframework.web.server.ResponseStatusException;
 import com.github.wesleybritovlk.healthmanager.app.customer.Customer.Sex;
 import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.Request;
 import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.Response;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.RiskResponse;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ScoreBucket;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.ScoreDistribution;
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblem;
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO;
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemRepository;
+import com.github.wesleybritovlk.healthmanager.common.CommonCache;
+import com.github.wesleybritovlk.healthmanager.common.CommonCursor;
 
 @ExtendWith(MockitoExtension.class)
 class CustomerServiceTest {
@@ -37,15 +51,25 @@ class CustomerServiceTest {
         private CustomerRepository repository;
         @Mock
         private CustomerMapper mapper;
+        @Mock
+        private CustomerRiskBoard riskBoard;
+        @Mock
+        private HealthProblemRepository healthProblemRepo;
+        @Mock
+        private CustomerNameIndex nameIndex;
+        @Mock
+        private CommonCache cache;
 
         private Customer customerCreate;
         private Request requestCreate;
         private Customer customerUpdate;
+        private CustomerRepository.Row row;
+        private HealthProblemDTO.Response responseProblem;
         private Response response;
 
         @BeforeEach
         void setup() {
-                service = new CustomerServiceImpl(repository, mapper);
+                service = new CustomerServiceImpl(repository, mapper, riskBoard, healthProblemRepo, nameIndex, cache);
                 customerCreate = Customer.builder().id(UUID.randomUUID()).name("foo")
                                 .dateBirth(LocalDate.parse("1999-12-01"))
                                 .sex(Sex.MALE).healthProblems(new TreeSet<>()).build();
@@ -58,10 +82,12 @@ class CustomerServiceTest {
                                                                 .hpName("test1").severity(BigInteger.ONE).build()))
                                 .build();
                 UUID customerId = customerUpdate.getId();
+                row = new CustomerRepository.Row(customerId, "foo1", LocalDate.parse("2000-01-20"), Sex.FEMALE,
+                                BigInteger.ONE);
+                responseProblem = new HealthProblemDTO.Response(UUID.randomUUID(), customerId, "test1",
+                                BigInteger.ONE);
                 response = new Response(customerUpdate.getId(), "foo1", LocalDate.parse("2000-01-20"), Sex.FEMALE,
-                                BigDecimal.valueOf(2d),
-                                Set.of(new HealthProblemDTO.Response(customerId, customerUpdate.getId(), "test1",
-                                                BigInteger.ONE)));
+                                BigDecimal.valueOf(2d), Set.of(responseProblem));
         }
 
         @Test
@@ -73,46 +99,158 @@ class CustomerServiceTest {
 
                 verify(mapper, times(1)).toModel(any(Request.class));
                 verify(repository, times(1)).saveAndFlush(any(Customer.class));
+                verify(riskBoard, times(1)).put(customerCreate.getId(), "foo", BigInteger.ZERO);
+                verify(nameIndex, times(1)).put(customerCreate.getId(), "foo");
+                verify(cache, times(1)).refresh(CommonCache.CUSTOMER_VIEWS, List.of(customerCreate.getId()));
         }
 
         @Test
         void itShouldReturnCustomerResponse_WithCustomerById() {
-                when(repository.findById(any(UUID.class))).thenReturn(Optional.of(customerUpdate));
-                when(repository.findSeveritySumById(any(UUID.class))).thenReturn(BigInteger.valueOf(4));
-                when(mapper.toResponse(any(Customer.class), any(BigInteger.class))).thenReturn(response);
+                when(repository.findRowById(any(UUID.class))).thenReturn(Optional.of(row));
+                when(healthProblemRepo.findAllResponsesByCustomerIdIn(List.of(row.id())))
+                                .thenReturn(List.of(responseProblem));
+                when(mapper.toResponse(row, List.of(responseProblem))).thenReturn(response);
 
-                service.findById(customerUpdate.getId());
+                assertThat(service.findById(customerUpdate.getId())).isEqualTo(response);
 
-                verify(repository, times(1)).findById(any(UUID.class));
-                verify(repository, times(1)).findSeveritySumById(any(UUID.class));
-                verify(mapper, times(1)).toResponse(any(Customer.class), any(BigInteger.class));
+                verify(repository, times(1)).findRowById(any(UUID.class));
+                verify(mapper, times(1)).toResponse(row, List.of(responseProblem));
                 assertThatThrownBy(() -> service.findById(any(UUID.class))).isInstanceOf(ResponseStatusException.class)
                                 .hasMessageContaining("Customer not found, please check the id");
         }
 
         @Test
         void itShouldReturnAllCustomersResponseInPage_byPageRequest() {
-                List<Customer> customers = List.of(customerUpdate);
                 Pageable pageable = PageRequest.of(0, 10);
-                when(repository.findAll()).thenReturn(customers);
-                when(repository.findSeveritySumById(any(UUID.class))).thenReturn(BigInteger.valueOf(4));
-                when(mapper.toResponse(any(Customer.class), any(BigInteger.class))).thenReturn(response);
+                when(repository.findAllRows(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(row), pageable, 1));
+                when(healthProblemRepo.findAllResponsesByCustomerIdIn(List.of(row.id())))
+                                .thenReturn(List.of(responseProblem));
+                when(mapper.toResponse(row, List.of(responseProblem))).thenReturn(response);
 
-                service.findAll(pageable);
+                Page<Response> page = service.findAll(pageable);
 
-                verify(repository, times(1)).findAll();
-                verify(repository, times(1)).findSeveritySumById(any(UUID.class));
-                verify(mapper, times(1)).toResponse(any(Customer.class), any(BigInteger.class));
+                verify(repository, times(1)).findAllRows(pageable);
+                verify(healthProblemRepo, times(1)).findAllResponsesByCustomerIdIn(List.of(row.id()));
+                assertThat(page.getContent()).containsExactly(response);
+                assertThat(page.getTotalElements()).isEqualTo(1);
         }
 
         @Test
         void itShouldReturnAllCustomersResponseInPage_ifPageIsEmpty() {
                 Pageable pageable = PageRequest.of(1, 10);
-                when(repository.findAll()).thenReturn(List.of());
+                when(repository.findAllRows(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(), pageable, 0));
 
                 service.findAll(pageable);
 
-                verify(repository, times(1)).findAll();
+                verify(repository, times(1)).findAllRows(pageable);
+                verifyNoInteractions(healthProblemRepo);
+        }
+
+        @Test
+        void itShouldReturnCustomersSlice_AfterCursor() {
+                CommonCursor after = new CommonCursor(4, UUID.randomUUID());
+                var rowCreate = new CustomerRepository.Row(customerCreate.getId(), "foo",
+                                LocalDate.parse("1999-12-01"), Sex.MALE, BigInteger.ZERO);
+                when(repository.findAllRowsAfter(any(BigInteger.class), any(UUID.class), any(Limit.class)))
+                                .thenReturn(List.of(row, rowCreate));
+                when(healthProblemRepo.findAllResponsesByCustomerIdIn(List.of(row.id())))
+                                .thenReturn(List.of(responseProblem));
+                when(mapper.toResponse(row, List.of(responseProblem))).thenReturn(response);
+
+                CommonCursor.Slice<Response> slice = service.findAllAfter(after, 1);
+
+                verify(repository, times(1)).findAllRowsAfter(BigInteger.valueOf(4), after.id(), Limit.of(2));
+                assertThat(slice.content()).containsExactly(response);
+                assertThat(CommonCursor.decode(slice.next()))
+                                .isEqualTo(new CommonCursor(1, customerUpdate.getId()));
+        }
+
+        @Test
+        void itShouldReturnFirstCustomersSlice_WithoutNextCursor() {
+                when(repository.findAllRows(any(Limit.class))).thenReturn(List.of());
+
+                CommonCursor.Slice<Response> slice = service.findAllAfter(null, 10);
+
+                verify(repository, times(1)).findAllRows(Limit.of(11));
+                assertThat(slice.content()).isEmpty();
+                assertThat(slice.next()).isNull();
+                assertThatThrownBy(() -> service.findAllAfter(null, 0)).isInstanceOf(ResponseStatusException.class)
+                                .hasMessageContaining("Query 'size' must be between 1 and 100");
+                assertThatThrownBy(() -> service.findAllAfter(null, Integer.MAX_VALUE))
+                                .isInstanceOf(ResponseStatusException.class)
+                                .hasMessageContaining("Query 'size' must be between 1 and 100");
+        }
+
+        @Test
+        void itShouldReturnScoreDistribution_FromGroupedCounts() {
+                var severityCount = new CustomerRepository.SeverityCount(BigInteger.TWO, 3L);
+                var bucket = new ScoreBucket(BigInteger.TWO, BigDecimal.valueOf(31.00), 3);
+                when(repository.countBySeveritySum()).thenReturn(List.of(severityCount));
+                when(repository.countBySex()).thenReturn(List.of(new CustomerRepository.SexCount(Sex.FEMALE, 3L)));
+                when(mapper.toScoreBucket(severityCount)).thenReturn(bucket);
+
+                ScoreDistribution distribution = service.findScoreDistribution();
+
+                assertThat(distribution.scores()).containsExactly(bucket);
+                assertThat(distribution.sex()).containsEntry(Sex.FEMALE, 3L).containsEntry(Sex.MALE, 0L).hasSize(4);
+        }
+
+        @Test
+        void itShouldSearchCustomersPage_InNameIndexRankOrder() {
+                var rowFoo = new CustomerRepository.Row(customerCreate.getId(), "foo", LocalDate.parse("1999-12-01"),
+                                Sex.MALE, BigInteger.ZERO);
+                var responseFoo = new Response(rowFoo.id(), "foo", rowFoo.dateBirth(), Sex.MALE,
+                                BigDecimal.ZERO.setScale(2), Set.of());
+                UUID removedId = UUID.randomUUID();
+                when(nameIndex.search("foo")).thenReturn(List.of(removedId, rowFoo.id(), row.id()));
+                when(repository.findAllRowsByIdIn(List.of(removedId, rowFoo.id()))).thenReturn(List.of(rowFoo));
+                when(healthProblemRepo.findAllResponsesByCustomerIdIn(List.of(rowFoo.id()))).thenReturn(List.of());
+                when(mapper.toResponse(rowFoo, List.of())).thenReturn(responseFoo);
+
+                Page<Response> page = service.search("foo", PageRequest.of(0, 2));
+
+                assertThat(page.getContent()).containsExactly(responseFoo);
+                assertThat(page.getTotalElements()).isEqualTo(3);
+                assertThat(service.search("foo", PageRequest.of(2, 2)).getContent()).isEmpty();
+        }
+
+        @Test
+        void itShouldSearchCustomersPage_WithLikeFallback() {
+                Pageable pageable = PageRequest.of(0, 10);
+                when(repository.findAllRowsByNameLike("fo", pageable)).thenReturn(new PageImpl<>(List.of(), pageable, 0));
+
+                when(repository.findAllRowsByNameLike("\\%", pageable)).thenReturn(new PageImpl<>(List.of(), pageable, 0));
+
+                assertThat(service.search("fo", pageable)).isEmpty();
+                assertThat(service.search("%", pageable)).isEmpty();
+                verifyNoInteractions(nameIndex);
+                assertThatThrownBy(() -> service.search(" ", pageable)).isInstanceOf(ResponseStatusException.class)
+                                .hasMessageContaining("Query 'name' shouldn't be blank");
+        }
+
+        @Test
+        void itShouldSearchTheIndex_ByTheNormalizedQueryLength() {
+                when(nameIndex.search("\u0130\u0130")).thenReturn(List.of());
+
+                assertThat(service.search("\u0130\u0130", PageRequest.of(0, 10))).isEmpty();
+                verify(repository, never()).findAllRowsByNameLike(any(), any());
+        }
+
+        @Test
+        void itShouldExportCustomers_InChunksOfRows() {
+                List<CustomerRepository.Row> rows = IntStream.range(0, 501)
+                                .mapToObj(i -> new CustomerRepository.Row(UUID.randomUUID(), "foo" + i,
+                                                LocalDate.parse("1999-12-01"), Sex.MALE, BigInteger.ZERO))
+                                .toList();
+                when(repository.streamAllRows()).thenReturn(rows.stream());
+                when(healthProblemRepo.findAllResponsesByCustomerIdIn(any())).thenReturn(List.of());
+                when(mapper.toResponse(any(CustomerRepository.Row.class), any())).thenReturn(response);
+                List<Response> exported = new ArrayList<>();
+
+                service.export(exported::add);
+
+                assertThat(exported).hasSize(501);
+                verify(healthProblemRepo, times(2)).findAllResponsesByCustomerIdIn(any());
         }
 
         @Test
@@ -132,15 +270,54 @@ class CustomerServiceTest {
                 verify(repository, times(1)).findById(any(UUID.class));
                 verify(mapper, times(1)).toModel(any(Customer.class), any(Request.class));
                 verify(repository, times(1)).saveAndFlush(any(Customer.class));
+                verify(repository, times(1)).bumpVersion(id);
+                verify(riskBoard, times(1)).rename(id, "fooUpdate");
+                verify(nameIndex, times(1)).put(id, "fooUpdate");
+        }
+
+        @Test
+        void itShouldReturnTopRiskCustomers_FromRiskBoard() {
+                CustomerRiskBoard.Entry entry = new CustomerRiskBoard.Entry(customerUpdate.getId(), "foo1",
+                                BigInteger.ONE);
+                RiskResponse riskResponse = new RiskResponse(entry.id(), "foo1", BigDecimal.valueOf(14.18));
+                when(riskBoard.top(10)).thenReturn(List.of(entry));
+                when(mapper.toRiskResponse(entry)).thenReturn(riskResponse);
+
+                assertThat(service.findTopRisk(10)).containsExactly(riskResponse);
+                assertThatThrownBy(() -> service.findTopRisk(0)).isInstanceOf(ResponseStatusException.class)
+                                .hasMessageContaining("Query 'k' must be between 1 and 100");
         }
 
         @Test
         void itShouldDeleteCustomerById() {
-                when(repository.existsById(any(UUID.class))).thenReturn(true);
+                when(repository.findById(customerUpdate.getId())).thenReturn(Optional.of(customerUpdate));
                 service.delete(customerUpdate.getId());
-                verify(repository, times(1)).existsById(any(UUID.class));
-                verify(repository, times(1)).deleteById(any(UUID.class));
+                verify(repository, times(1)).delete(customerUpdate);
+                verify(riskBoard, times(1)).remove(customerUpdate.getId());
+                verify(nameIndex, times(1)).remove(customerUpdate.getId());
+                verify(cache, times(1)).refresh(CommonCache.CUSTOMER_VIEWS, List.of(customerUpdate.getId()));
+                verify(cache, times(1)).evict(CommonCache.HEALTH_PROBLEM, customerUpdate.getHealthProblems()
+                                .stream().map(HealthProblem::getId).toList());
+                verify(cache, times(1)).bump(CommonCache.CUSTOMERS);
+                verify(cache, times(1)).bump(CommonCache.HEALTH_PROBLEMS);
                 assertThatThrownBy(() -> service.delete(any(UUID.class))).isInstanceOf(ResponseStatusException.class)
                                 .hasMessageContaining("Customer not found, please check the id");
         }
+
+        @Test
+        void itShouldFindCustomerVersion_OrThrowNotFound() {
+                when(repository.findVersionById(customerUpdate.getId())).thenReturn(Optional.of(3L));
+
+                assertThat(service.findVersion(customerUpdate.getId())).isEqualTo(3L);
+                assertThatThrownBy(() -> service.findVersion(UUID.randomUUID()))
+                                .isInstanceOf(ResponseStatusException.class)
+                                .hasMessageContaining("Customer not found, please check the id");
+        }
+
+        @Test
+        void itShouldReconcileSeveritySum() {
+                service.reconcileSeveritySum();
+                verify(repository, times(1)).reconcileSeveritySum();
+                verify(riskBoard, times(1)).reload();
+        }
 }
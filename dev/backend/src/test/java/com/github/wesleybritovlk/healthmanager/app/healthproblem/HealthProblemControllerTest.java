@@ -14,7 +14,9 @@ import java.math.BigInteger;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -28,6 +30,9 @@ import org.springframework.test.web.servlet.MockMvc;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO.Request;
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO.Response;
+import com.github.wesleybritovlk.healthmanager.common.CommonCache;
+import com.github.wesleybritovlk.healthmanager.common.CommonCursor;
+import com.github.wesleybritovlk.healthmanager.common.CommonJson;
 import com.github.wesleybritovlk.healthmanager.handler.GlobalHandlerException;
 
 @WebMvcTest(HealthProblemController.class)
@@ -47,6 +52,17 @@ class HealthProblemControllerTest {
         @MockBean
         private GlobalHandlerException globalHandlerException;
 
+        @MockBean
+        private CommonCache cache;
+
+        @BeforeEach
+        void setup() {
+                when(cache.json(any(), any(), any())).thenAnswer(
+                                invocation -> CommonJson.of(objectMapper, invocation.<Supplier<?>>getArgument(2).get()));
+                when(cache.listingJson(any(), any(), any())).thenAnswer(
+                                invocation -> CommonJson.of(objectMapper, invocation.<Supplier<?>>getArgument(2).get()));
+        }
+
         @Test
         void itShouldCreateHealthProblem_WithHealthProblemDTORequest() throws Exception {
                 Request request = new Request(UUID.randomUUID(), "problem", BigInteger.ONE);
@@ -86,6 +102,18 @@ class HealthProblemControllerTest {
                                 .andDo(print());
         }
 
+        @Test
+        void itShouldGetFirstHealthProblemsSlice_byEmptyCursor() throws Exception {
+                List<Response> responses = List.of(
+                                new Response(UUID.randomUUID(), UUID.randomUUID(), "problem", BigInteger.TWO));
+                when(service.findAllAfter(null, 10)).thenReturn(new CommonCursor.Slice<>(responses, 1, null));
+                mockMvc.perform(get("/api/health-problems").param("after", ""))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.content.size()").value(1))
+                                .andExpect(jsonPath("$.next").doesNotExist())
+                                .andDo(print());
+        }
+
         @Test
         void itShouldUpdateHealthProblem_WithHealthProblemIdAndHealthProblemDTORequest() throws Exception {
                 UUID id = UUID.randomUUID();
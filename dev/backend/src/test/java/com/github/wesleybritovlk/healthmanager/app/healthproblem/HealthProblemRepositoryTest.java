@@ -2,6 +2,7 @@ package com.github.wesleybritovlk.healthmanager.app.healthproblem;
 
 import static java.util.Comparator.comparing;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.math.BigInteger;
 import java.time.LocalDate;
@@ -12,13 +13,19 @@ import java.util.Set;
 import java.util.TreeSet;
 import java.util.UUID;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 
 import com.github.wesleybritovlk.healthmanager.app.customer.Customer;
 import com.github.wesleybritovlk.healthmanager.app.customer.CustomerRepository;
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO.Response;
 
 @DataJpaTest
 class HealthProblemRepositoryTest {
@@ -83,4 +90,40 @@ class HealthProblemRepositoryTest {
         assertThat(repository.findById(id)).isEmpty();
         assertThat(customer.getHealthProblems()).hasSize(1);
     }
+
+    @Test
+    void itShouldSeekHealthProblems_AfterSeverityAndId() {
+        List<Response> first = repository.findAllResponses(Limit.of(1));
+        Response last = first.get(0);
+
+        List<Response> next = repository.findAllResponsesAfter(last.severity(), last.id(), Limit.of(10));
+
+        assertThat(first).extracting(Response::problem_name).containsExactly("test1");
+        assertThat(next).extracting(Response::problem_name).containsExactly("test");
+    }
+
+    @Test
+    void itShouldRejectDuplicatedProblemName_ForTheSameCustomer() {
+        Customer customer = customerRepo.findAll().get(0);
+        Customer other = customerRepo.saveAndFlush(Customer.builder().name("bar")
+                .dateBirth(LocalDate.parse("2000-01-20")).sex(Customer.Sex.FEMALE).build());
+
+        repository.saveAndFlush(HealthProblem.builder().customer(other).hpName("test1").severity(BigInteger.ONE)
+                .build());
+        assertThatThrownBy(() -> repository.saveAndFlush(HealthProblem.builder().customer(customer).hpName("test1")
+                .severity(BigInteger.ONE).build()))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .cause().isInstanceOfSatisfying(ConstraintViolationException.class,
+                        e -> assertThat(e.getConstraintName()).containsIgnoringCase(HealthProblem.HP_NAME_UK));
+    }
+
+    @Test
+    void itShouldFindHealthProblemResponses_OrderedBySeverity() {
+        Page<Response> page = repository.findAllResponses(PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(Response::severity).containsExactly(BigInteger.TWO, BigInteger.ONE);
+        Response first = page.getContent().get(0);
+        assertThat(repository.findResponseById(first.id())).contains(first);
+    }
 }
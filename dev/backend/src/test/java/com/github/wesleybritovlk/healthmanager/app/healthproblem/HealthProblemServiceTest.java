@@ -1,8 +1,10 @@
 package com.github.wesleybritovlk.healthmanager.app.healthproblem;
 
 import static java.util.Comparator.comparing;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -10,6 +12,7 @@ import static org.mockito.Mockito.when;
 import java.math.BigInteger;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
@@ -20,6 +23,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.server.ResponseStatusException;
@@ -27,8 +33,13 @@ import org.springframework.web.server.ResponseStatusException;
 import com.github.wesleybritovlk.healthmanager.app.customer.Customer;
 import com.github.wesleybritovlk.healthmanager.app.customer.Customer.Sex;
 import com.github.wesleybritovlk.healthmanager.app.customer.CustomerRepository;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerRiskBoard;
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO.BatchItem;
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO.BatchRequest;
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO.Request;
 import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemDTO.Response;
+import com.github.wesleybritovlk.healthmanager.common.CommonCache;
+import com.github.wesleybritovlk.healthmanager.common.CommonCursor;
 
 @ExtendWith(MockitoExtension.class)
 class HealthProblemServiceTest {
@@ -39,6 +50,10 @@ class HealthProblemServiceTest {
     private HealthProblemMapper mapper;
     @Mock
     private CustomerRepository customerRepo;
+    @Mock
+    private CustomerRiskBoard riskBoard;
+    @Mock
+    private CommonCache cache;
 
     private Customer customerEmpty;
     private Customer customer;
@@ -49,7 +64,7 @@ class HealthProblemServiceTest {
 
     @BeforeEach
     void setup() {
-        service = new HealthProblemServiceImpl(repository, mapper, customerRepo);
+        service = new HealthProblemServiceImpl(repository, mapper, customerRepo, riskBoard, cache);
         customerEmpty = Customer.builder().id(UUID.randomUUID()).name("foo")
                 .dateBirth(LocalDate.parse("1999-12-01")).sex(Sex.MALE).healthProblems(new TreeSet<>()).build();
         healthProblemCreate = HealthProblem.builder().id(UUID.randomUUID()).customer(customerEmpty).hpName("test")
@@ -76,42 +91,97 @@ class HealthProblemServiceTest {
         verify(customerRepo, times(1)).findById(any(UUID.class));
         verify(mapper, times(1)).toModel(any(Request.class), any(Customer.class));
         verify(repository, times(1)).saveAndFlush(any(HealthProblem.class));
+        verify(customerRepo, times(1)).addSeveritySum(customerEmpty.getId(), 1L);
+        verify(riskBoard, times(1)).add(customerEmpty.getId(), 1L);
+    }
+
+    @Test
+    void itShouldCreateAllHealthProblems_WithOneFlushAndOneSeverityUpdate() {
+        BatchRequest batch = new BatchRequest(List.of(new BatchItem("test", BigInteger.ONE),
+                new BatchItem("test2", BigInteger.TWO)));
+        HealthProblem healthProblem2 = HealthProblem.builder().id(UUID.randomUUID()).customer(customerEmpty)
+                .hpName("test2").severity(BigInteger.TWO).build();
+        when(customerRepo.findById(customerEmpty.getId())).thenReturn(Optional.of(customerEmpty));
+        when(mapper.toModel(any(Request.class), any(Customer.class))).thenReturn(healthProblemCreate, healthProblem2);
+        when(repository.saveAll(List.of(healthProblemCreate, healthProblem2)))
+                .thenReturn(List.of(healthProblemCreate, healthProblem2));
+        when(mapper.toResponse(any(UUID.class), any(String.class))).thenReturn(Map.of());
+
+        assertThat(service.createAll(customerEmpty.getId(), batch)).hasSize(2);
+
+        verify(repository, times(1)).flush();
+        verify(customerRepo, times(1)).addSeveritySum(customerEmpty.getId(), 3L);
+        verify(riskBoard, times(1)).add(customerEmpty.getId(), 3L);
+    }
+
+    @Test
+    void itShouldNotCreateAllHealthProblems_WhenNamesConflict() {
+        BatchRequest duplicated = new BatchRequest(List.of(new BatchItem("test", BigInteger.ONE),
+                new BatchItem("test", BigInteger.TWO)));
+        BatchRequest existing = new BatchRequest(List.of(new BatchItem("test1", BigInteger.ONE)));
+        when(customerRepo.findById(customer.getId())).thenReturn(Optional.of(customer));
+        when(mapper.toModel(any(Request.class), any(Customer.class))).thenReturn(healthProblemUpdate);
+        when(repository.saveAll(List.of(healthProblemUpdate))).thenReturn(List.of(healthProblemUpdate));
+        doThrow(new DataIntegrityViolationException(HealthProblem.HP_NAME_UK)).when(repository).flush();
+
+        assertThatThrownBy(() -> service.createAll(customer.getId(), duplicated))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("Problem names must be unique in the batch");
+        assertThatThrownBy(() -> service.createAll(customer.getId(), existing))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        verify(repository, times(1)).saveAll(any());
+        verify(customerRepo, times(0)).addSeveritySum(any(UUID.class), any(Long.class));
     }
 
     @Test
     void itShouldReturnHealthProblemResponse_byHealthProblemId() {
-        when(repository.findById(any(UUID.class))).thenReturn(Optional.of(healthProblemUpdate));
-        when(mapper.toResponse(any(HealthProblem.class))).thenReturn(response);
+        when(repository.findResponseById(any(UUID.class))).thenReturn(Optional.of(response));
 
-        service.findById(healthProblemUpdate.getId());
+        assertThat(service.findById(healthProblemUpdate.getId())).isEqualTo(response);
 
-        verify(repository, times(1)).findById(any(UUID.class));
-        verify(mapper, times(1)).toResponse(any(HealthProblem.class));
+        verify(repository, times(1)).findResponseById(any(UUID.class));
         assertThatThrownBy(() -> service.findById(any(UUID.class))).isInstanceOf(ResponseStatusException.class)
                 .hasMessageContaining("Health Problem not found, please check the id");
     }
 
     @Test
     void itShouldReturnAllHealthProblemsResponseInPage_byPageRequest() {
-        List<HealthProblem> healthProblems = List.of(healthProblemUpdate);
         Pageable pageable = PageRequest.of(0, 10);
-        when(repository.findAll()).thenReturn(healthProblems);
-        when(mapper.toResponse(any(HealthProblem.class))).thenReturn(response);
+        when(repository.findAllResponses(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(response), pageable, 1));
 
-        service.findAll(pageable);
+        assertThat(service.findAll(pageable).getContent()).containsExactly(response);
 
-        verify(repository, times(1)).findAll();
-        verify(mapper, times(1)).toResponse(any(HealthProblem.class));
+        verify(repository, times(1)).findAllResponses(pageable);
     }
 
     @Test
     void itShouldReturnAllHealthProblemsResponseInPage_ifPageIsEmpty() {
         Pageable pageable = PageRequest.of(1, 10);
-        when(repository.findAll()).thenReturn(List.of());
+        when(repository.findAllResponses(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(), pageable, 0));
 
         service.findAll(pageable);
 
-        verify(repository, times(1)).findAll();
+        verify(repository, times(1)).findAllResponses(pageable);
+    }
+
+    @Test
+    void itShouldReturnHealthProblemsSlice_AfterCursor() {
+        CommonCursor after = new CommonCursor(2, UUID.randomUUID());
+        when(repository.findAllResponsesAfter(any(BigInteger.class), any(UUID.class), any(Limit.class)))
+                .thenReturn(List.of(response));
+
+        CommonCursor.Slice<Response> slice = service.findAllAfter(after, 10);
+
+        verify(repository, times(1)).findAllResponsesAfter(BigInteger.TWO, after.id(), Limit.of(11));
+        assertThat(slice.content()).containsExactly(response);
+        assertThat(slice.next()).isNull();
+    }
+
+    @Test
+    void itShouldRejectSliceSizes_OutOfBounds() {
+        for (int size : new int[] { 0, CommonCursor.MAX_SIZE + 1, Integer.MAX_VALUE })
+            assertThatThrownBy(() -> service.findAllAfter(null, size)).isInstanceOf(ResponseStatusException.class)
+                    .hasMessageContaining("Query 'size' must be between 1 and 100");
     }
 
     @Test
@@ -129,6 +199,26 @@ class HealthProblemServiceTest {
         verify(repository, times(1)).findById(any(UUID.class));
         verify(mapper, times(1)).toModel(any(HealthProblem.class), any(Request.class));
         verify(repository, times(1)).saveAndFlush(any(HealthProblem.class));
+        verify(customerRepo, times(1)).addSeveritySum(customer.getId(), -1L);
+        verify(customerRepo, times(0)).bumpVersion(any(UUID.class));
+        verify(cache, times(1)).evict(CommonCache.HEALTH_PROBLEM, List.of(id));
+        verify(cache, times(1)).bump(CommonCache.CUSTOMERS);
+        verify(cache, times(1)).bump(CommonCache.HEALTH_PROBLEMS);
+    }
+
+    @Test
+    void itShouldBumpCustomerVersion_WhenOnlyTheNameChanges() {
+        UUID id = healthProblemUpdate.getId();
+        HealthProblem healthProblem = HealthProblem.builder().id(id).customer(customer)
+                .hpName("testRenamed").severity(BigInteger.TWO).build();
+        when(repository.findById(id)).thenReturn(Optional.of(healthProblemUpdate));
+        when(mapper.toModel(any(HealthProblem.class), any(Request.class))).thenReturn(healthProblem);
+        when(repository.saveAndFlush(any(HealthProblem.class))).thenReturn(healthProblem);
+
+        service.update(id, new Request(customer.getId(), "testRenamed", BigInteger.TWO));
+
+        verify(customerRepo, times(0)).addSeveritySum(any(UUID.class), any(Long.class));
+        verify(customerRepo, times(1)).bumpVersion(customer.getId());
     }
 
     @Test
@@ -138,10 +228,13 @@ class HealthProblemServiceTest {
                 .build();
         Request conflictRequest = new Request(id, "problem1", BigInteger.TWO);
         when(repository.findById(any(UUID.class))).thenReturn(Optional.of(hp));
-        when(repository.existsByCustomerIdAndHpName(any(UUID.class), any(String.class))).thenReturn(true);
+        when(mapper.toModel(any(HealthProblem.class), any(Request.class))).thenReturn(hp);
+        when(repository.saveAndFlush(any(HealthProblem.class)))
+                .thenThrow(new DataIntegrityViolationException(HealthProblem.HP_NAME_UK));
 
-        assertThatThrownBy(() -> service.update(id, conflictRequest)).isInstanceOf(ResponseStatusException.class)
-                .hasMessageContaining("This Health Problem already exists in this Customer");
+        assertThatThrownBy(() -> service.update(id, conflictRequest))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        verify(customerRepo, times(0)).addSeveritySum(any(UUID.class), any(Long.class));
 
     }
 
@@ -153,5 +246,7 @@ class HealthProblemServiceTest {
 
         verify(repository, times(1)).findById(any(UUID.class));
         verify(repository, times(1)).delete(any(HealthProblem.class));
+        verify(customerRepo, times(1)).addSeveritySum(customer.getId(), -2L);
+        verify(riskBoard, times(1)).add(customer.getId(), -2L);
     }
 }
@@ -0,0 +1,145 @@
+package com.github.wesleybritovlk.healthmanager.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.github.wesleybritovlk.healthmanager.common.CommonCacheBus.Invalidation;
+import com.github.wesleybritovlk.healthmanager.common.CommonCacheBus.Kind;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+class CommonCacheBusTest {
+        private final CommonCacheEventRepository repository;
+        private DatabaseCacheBus node;
+        private DatabaseCacheBus peer;
+        private final List<Invalidation> received = new ArrayList<>();
+
+        @Autowired
+        public CommonCacheBusTest(CommonCacheEventRepository repository) {
+                this.repository = repository;
+        }
+
+        @BeforeEach
+        void setup() {
+                node = bus();
+                peer = bus();
+                node.subscribe("node", invalidation -> {
+                        throw new AssertionError("Received its own invalidation " + invalidation);
+                });
+                peer.subscribe("peer", received::add);
+        }
+
+        private DatabaseCacheBus bus() {
+                var bus = new DatabaseCacheBus(repository, new SimpleMeterRegistry());
+                ReflectionTestUtils.setField(bus, "overlap", Duration.ofSeconds(5));
+                ReflectionTestUtils.setField(bus, "retention", Duration.ofHours(1));
+                return bus;
+        }
+
+        @Test
+        void itShouldDeliverOnce_ToPeersOnly() {
+                node.publish(List.of(new Invalidation("node", Kind.BUMP, CommonCache.CUSTOMERS, List.of())));
+
+                node.poll();
+                peer.poll();
+                peer.poll();
+
+                assertThat(received).containsExactly(
+                                new Invalidation("node", Kind.BUMP, CommonCache.CUSTOMERS, List.of()));
+        }
+
+        @Test
+        void itShouldSplitLongEvictions_AcrossRows() {
+                List<String> keys = IntStream.range(0, 300).mapToObj(i -> UUID.randomUUID().toString()).toList();
+
+                node.publish(List.of(new Invalidation("node", Kind.EVICT, CommonCache.HEALTH_PROBLEM, keys)));
+                peer.poll();
+
+                assertThat(repository.count()).isEqualTo(3);
+                assertThat(received).flatExtracting(Invalidation::keys).containsExactlyInAnyOrderElementsOf(keys);
+        }
+
+        @Test
+        void itShouldWriteTheInvalidationsOfATransaction_InOneRow() {
+                String id = UUID.randomUUID().toString();
+                List<Invalidation> invalidations = List.of(
+                                new Invalidation("node", Kind.REFRESH, CommonCache.CUSTOMER_VIEWS, List.of(id)),
+                                new Invalidation("node", Kind.EVICT, CommonCache.HEALTH_PROBLEM, List.of(id, "bar")),
+                                new Invalidation("node", Kind.BUMP, CommonCache.CUSTOMERS, List.of()));
+
+                node.publish(invalidations);
+                peer.poll();
+
+                assertThat(repository.count()).isEqualTo(1);
+                assertThat(received).containsExactlyElementsOf(invalidations);
+        }
+
+        @Test
+        void itShouldReadFromTheNewestRowRead_LessTheOverlap() {
+                var events = mock(CommonCacheEventRepository.class);
+                var bus = new DatabaseCacheBus(events, new SimpleMeterRegistry());
+                ReflectionTestUtils.setField(bus, "overlap", Duration.ofSeconds(5));
+                bus.subscribe("peer", received::add);
+                Instant createdAt = Instant.parse("2026-01-01T00:00:00Z");
+                when(events.findAllByCreatedAtAfterOrderByCreatedAt(any())).thenReturn(List.of(CommonCacheEvent.builder()
+                                .id(UUID.randomUUID()).createdAt(createdAt).node("node")
+                                .invalidations("BUMP " + CommonCache.CUSTOMERS).build()));
+
+                bus.poll();
+                bus.poll();
+
+                verify(events).findAllByCreatedAtAfterOrderByCreatedAt(createdAt.minusSeconds(5));
+                assertThat(received).containsExactly(
+                                new Invalidation("node", Kind.BUMP, CommonCache.CUSTOMERS, List.of()));
+        }
+
+        @Test
+        void itShouldPollOnItsOwnThread() {
+                var events = mock(CommonCacheEventRepository.class);
+                var bus = new DatabaseCacheBus(events, new SimpleMeterRegistry());
+                ReflectionTestUtils.setField(bus, "overlap", Duration.ofSeconds(5));
+                ReflectionTestUtils.setField(bus, "pollInterval", Duration.ofMillis(10));
+                var threads = new CopyOnWriteArrayList<String>();
+                when(events.findAllByCreatedAtAfterOrderByCreatedAt(any())).thenAnswer(invocation -> {
+                        threads.add(Thread.currentThread().getName());
+                        throw new IllegalStateException("database down");
+                });
+
+                bus.start();
+                try {
+                        verify(events, timeout(5_000).atLeast(2)).findAllByCreatedAtAfterOrderByCreatedAt(any());
+                } finally {
+                        bus.stop();
+                }
+                assertThat(threads).first().isEqualTo("cache-bus-poller");
+        }
+
+        @Test
+        void itShouldPurgeRows_OlderThanTheRetention() {
+                node.publish(List.of(new Invalidation("node", Kind.CLEAR, CommonCache.CUSTOMER, List.of())));
+                ReflectionTestUtils.setField(node, "retention", Duration.ofSeconds(-1));
+
+                node.purge();
+
+                assertThat(repository.count()).isZero();
+        }
+}
@@ -0,0 +1,271 @@
+package com.github.wesleybritovlk.healthmanager.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.wesleybritovlk.healthmanager.common.CommonCacheBus.Invalidation;
+import com.github.wesleybritovlk.healthmanager.common.CommonCacheBus.Kind;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CommonCacheTest {
+        private CommonCache cache;
+        private CacheManager cacheManager;
+        private MeterRegistry meterRegistry;
+        private CommonCacheBus bus;
+
+        @BeforeEach
+        void setup() {
+                cacheManager = new ConcurrentMapCacheManager(CommonCache.CUSTOMER, CommonCache.CUSTOMERS);
+                meterRegistry = new SimpleMeterRegistry();
+                bus = new InProcessCacheBus();
+                cache = node(cacheManager);
+                cacheManager.getCache(CommonCache.CUSTOMER).put("foo", "foo");
+                cacheManager.getCache(CommonCache.CUSTOMER).put("bar", "bar");
+        }
+
+        private CommonCacheImpl node(CacheManager cacheManager) {
+                var node = new CommonCacheImpl(cacheManager, JsonMapper.builder().findAndAddModules().build(),
+                                meterRegistry, bus);
+                node.subscribe();
+                return node;
+        }
+
+        @Test
+        void itShouldEvictOnlyTheGivenKeys() {
+                cache.evict(CommonCache.CUSTOMER, List.of("foo"));
+
+                assertThat(cacheManager.getCache(CommonCache.CUSTOMER).get("foo")).isNull();
+                assertThat(cacheManager.getCache(CommonCache.CUSTOMER).get("bar").get()).isEqualTo("bar");
+        }
+
+        @Test
+        void itShouldBumpOnlyTheGivenListingGeneration() {
+                cache.bump(CommonCache.CUSTOMERS);
+                cache.bump(CommonCache.CUSTOMERS);
+
+                assertThat(cache.generation(CommonCache.CUSTOMERS)).isEqualTo(2);
+                assertThat(cache.generation(CommonCache.HEALTH_PROBLEMS)).isZero();
+                assertThat(cache.version(CommonCache.CUSTOMERS)).endsWith(".2")
+                                .isNotEqualTo(cache.version(CommonCache.HEALTH_PROBLEMS));
+        }
+
+        @Test
+        void itShouldEncodeOnlyOnMiss_AndKeyListingsByGeneration() {
+                var loads = new AtomicInteger();
+                Supplier<Object> loader = () -> Map.of("page", loads.incrementAndGet());
+
+                CommonJson first = cache.listingJson(CommonCache.CUSTOMERS, "0:10", loader);
+                CommonJson hit = cache.listingJson(CommonCache.CUSTOMERS, "0:10", loader);
+                cache.bump(CommonCache.CUSTOMERS);
+                CommonJson bumped = cache.listingJson(CommonCache.CUSTOMERS, "0:10", loader);
+
+                assertThat(hit).isSameAs(first);
+                assertThat(new String(first.json(), StandardCharsets.UTF_8)).isEqualTo("{\"page\":1}");
+                assertThat(new String(bumped.json(), StandardCharsets.UTF_8)).isEqualTo("{\"page\":2}");
+        }
+
+        @Test
+        void itShouldNotCacheFailedLoads() {
+                assertThatThrownBy(() -> cache.json(CommonCache.CUSTOMER, "baz", () -> {
+                        throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+                })).isInstanceOf(ResponseStatusException.class);
+                assertThat(cacheManager.getCache(CommonCache.CUSTOMER).get("baz")).isNull();
+        }
+
+        @Test
+        void itShouldNotCacheTheLoad_WhenAnEvictionLandsWhileItRuns() {
+                UUID id = UUID.randomUUID();
+                CommonJson stale = cache.json(CommonCache.CUSTOMER, id + ":0", () -> {
+                        cache.evict(CommonCache.CUSTOMER, List.of(id + ":0"));
+                        return Map.of("name", "old");
+                });
+                CommonJson fresh = cache.json(CommonCache.CUSTOMER, id + ":0", () -> Map.of("name", "new"));
+
+                assertThat(new String(stale.json(), StandardCharsets.UTF_8)).isEqualTo("{\"name\":\"old\"}");
+                assertThat(new String(fresh.json(), StandardCharsets.UTF_8)).isEqualTo("{\"name\":\"new\"}");
+        }
+
+        @Test
+        void itShouldRunOneLoad_ForConcurrentMissesOnTheSameKey() throws Exception {
+                int callers = 8;
+                var loads = new AtomicInteger();
+                var release = new CountDownLatch(1);
+                Supplier<Object> loader = () -> {
+                        loads.incrementAndGet();
+                        try {
+                                release.await();
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                        return Map.of("page", 0);
+                };
+                ExecutorService executor = Executors.newFixedThreadPool(callers);
+                try {
+                        List<Future<CommonJson>> bodies = IntStream.range(0, callers)
+                                        .mapToObj(i -> executor.submit(
+                                                        () -> cache.listingJson(CommonCache.CUSTOMERS, "0:10", loader)))
+                                        .toList();
+                        while (coalesced() < callers - 1)
+                                Thread.onSpinWait();
+                        release.countDown();
+
+                        for (Future<CommonJson> body : bodies)
+                                assertThat(body.get(5, TimeUnit.SECONDS)).isSameAs(bodies.get(0).get());
+                } finally {
+                        executor.shutdownNow();
+                }
+                assertThat(loads).hasValue(1);
+                assertThat(meterRegistry.counter("cache.flights", "cache", CommonCache.CUSTOMERS, "result", "leader")
+                                .count()).isEqualTo(1);
+        }
+
+        @Test
+        void itShouldShareTheLeaderFailure_WithCoalescedCallers() throws Exception {
+                var release = new CountDownLatch(1);
+                Supplier<Object> loader = () -> {
+                        try {
+                                release.await();
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                        throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+                };
+                ExecutorService executor = Executors.newFixedThreadPool(2);
+                try {
+                        Future<CommonJson> leader = executor.submit(() -> cache.json(CommonCache.CUSTOMER, "baz", loader));
+                        Future<CommonJson> waiter = executor.submit(() -> cache.json(CommonCache.CUSTOMER, "baz", loader));
+                        while (meterRegistry.counter("cache.flights", "cache", CommonCache.CUSTOMER, "result", "coalesced")
+                                        .count() < 1)
+                                Thread.onSpinWait();
+                        release.countDown();
+
+                        for (Future<CommonJson> body : List.of(leader, waiter))
+                                assertThatThrownBy(() -> body.get(5, TimeUnit.SECONDS))
+                                                .hasCauseInstanceOf(ResponseStatusException.class);
+                } finally {
+                        executor.shutdownNow();
+                }
+        }
+
+        private double coalesced() {
+                return meterRegistry.counter("cache.flights", "cache", CommonCache.CUSTOMERS, "result", "coalesced")
+                                .count();
+        }
+
+        @Test
+        void itShouldWaitForTheCommit_InsideATransaction() {
+                TransactionSynchronizationManager.initSynchronization();
+                try {
+                        cache.evict(CommonCache.CUSTOMER, List.of("foo"));
+                        cache.bump(CommonCache.CUSTOMERS);
+
+                        assertThat(cacheManager.getCache(CommonCache.CUSTOMER).get("foo")).isNotNull();
+                        assertThat(cache.generation(CommonCache.CUSTOMERS)).isZero();
+
+                        commit();
+                } finally {
+                        TransactionSynchronizationManager.clearSynchronization();
+                }
+                assertThat(cacheManager.getCache(CommonCache.CUSTOMER).get("foo")).isNull();
+                assertThat(cache.generation(CommonCache.CUSTOMERS)).isEqualTo(1);
+        }
+
+        private static void commit() {
+                TransactionSynchronizationManager.getSynchronizations()
+                                .forEach(synchronization -> synchronization.beforeCommit(false));
+                TransactionSynchronizationManager.getSynchronizations()
+                                .forEach(TransactionSynchronization::afterCommit);
+                TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization
+                                .afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        }
+
+        @Test
+        void itShouldPublishTheInvalidationsOfATransaction_Once() {
+                var published = new ArrayList<List<Invalidation>>();
+                bus = new InProcessCacheBus() {
+                        @Override
+                        public void publish(List<Invalidation> invalidations) {
+                                published.add(invalidations);
+                                super.publish(invalidations);
+                        }
+                };
+                cache = node(cacheManager);
+                UUID id = UUID.randomUUID();
+                TransactionSynchronizationManager.initSynchronization();
+                try {
+                        cache.refresh(CommonCache.CUSTOMER_VIEWS, List.of(id));
+                        cache.evict(CommonCache.CUSTOMER, List.of("foo"));
+                        cache.bump(CommonCache.CUSTOMERS);
+                        cache.bump(CommonCache.CUSTOMERS);
+
+                        assertThat(published).isEmpty();
+                        commit();
+                } finally {
+                        TransactionSynchronizationManager.clearSynchronization();
+                }
+                assertThat(published).hasSize(1);
+                assertThat(published.get(0)).extracting(Invalidation::kind)
+                                .containsExactly(Kind.REFRESH, Kind.EVICT, Kind.BUMP);
+                assertThat(cache.generation(CommonCache.CUSTOMERS)).isEqualTo(1);
+                assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+        }
+
+        @Test
+        void itShouldApplyInvalidations_OnPeerNodes() {
+                var peerManager = new ConcurrentMapCacheManager(CommonCache.HEALTH_PROBLEM, CommonCache.CUSTOMERS);
+                CommonCache peer = node(peerManager);
+                UUID id = UUID.randomUUID();
+                peer.json(CommonCache.HEALTH_PROBLEM, id, () -> Map.of("id", id));
+                peer.json(CommonCache.HEALTH_PROBLEM, "bar", () -> Map.of("id", "bar"));
+
+                cache.evict(CommonCache.HEALTH_PROBLEM, List.of(id));
+                cache.bump(CommonCache.CUSTOMERS);
+
+                assertThat(peerManager.getCache(CommonCache.HEALTH_PROBLEM).get(id.toString())).isNull();
+                assertThat(peerManager.getCache(CommonCache.HEALTH_PROBLEM).get("bar")).isNotNull();
+                assertThat(peer.generation(CommonCache.CUSTOMERS)).isEqualTo(1);
+                assertThat(cache.generation(CommonCache.CUSTOMERS)).isEqualTo(1);
+        }
+
+        @Test
+        void itShouldRefreshViews_OnlyOnPeerNodes() {
+                CommonCache peer = node(new ConcurrentMapCacheManager());
+                var local = new ArrayList<List<String>>();
+                var remote = new ArrayList<List<String>>();
+                cache.onRefresh(CommonCache.CUSTOMER_VIEWS, local::add);
+                peer.onRefresh(CommonCache.CUSTOMER_VIEWS, remote::add);
+                UUID id = UUID.randomUUID();
+
+                cache.refresh(CommonCache.CUSTOMER_VIEWS, List.of(id));
+                cache.refresh(CommonCache.CUSTOMER_VIEWS, List.of());
+
+                assertThat(local).isEmpty();
+                assertThat(remote).containsExactly(List.of(id.toString()));
+        }
+}
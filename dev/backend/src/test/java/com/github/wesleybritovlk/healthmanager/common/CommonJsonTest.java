@@ -0,0 +1,55 @@
+package com.github.wesleybritovlk.healthmanager.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+class CommonJsonTest {
+        private final JsonMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+        @Test
+        void itShouldSkipGzip_ForSmallBodies() {
+                CommonJson body = CommonJson.of(objectMapper, Map.of("content", "foo"));
+
+                ResponseEntity<byte[]> response = body.toResponse("gzip", "\"1\"");
+
+                assertThat(body.gzip()).isNull();
+                assertThat(response.getHeaders().getContentLength()).isEqualTo(body.json().length);
+                assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        }
+
+        @Test
+        void itShouldServeGzip_OnlyWhenAccepted() throws IOException {
+                CommonJson body = CommonJson.of(objectMapper, Map.of("content", "foo ".repeat(1_000)));
+
+                ResponseEntity<byte[]> gzipped = body.toResponse("deflate, gzip;q=0.8", "\"1-gzip\"");
+                ResponseEntity<byte[]> plain = body.toResponse("gzip;q=0", "\"1\"");
+
+                assertThat(gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+                assertThat(gzipped.getHeaders().getContentLength()).isEqualTo(body.gzip().length);
+                try (var json = new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody()))) {
+                        assertThat(json.readAllBytes()).isEqualTo(body.json());
+                }
+                assertThat(plain.getBody()).isSameAs(body.json());
+        }
+
+        @Test
+        void itShouldTagVersionsAndEncodingsApart() {
+                CommonJson foo = CommonJson.of(objectMapper, Map.of("content", "foo"));
+
+                assertThat(CommonJson.etag(3, null)).isEqualTo("\"3\"");
+                assertThat(CommonJson.etag(3, "gzip")).isEqualTo("\"3-gzip\"");
+                assertThat(foo.hash()).isEqualTo(CommonJson.of(objectMapper, Map.of("content", "foo")).hash())
+                                .isNotEqualTo(CommonJson.of(objectMapper, Map.of("content", "bar")).hash());
+                assertThat(foo.toResponse(null, "\"3\"").getHeaders().getETag()).isEqualTo("\"3\"");
+        }
+}
@@ -0,0 +1,75 @@
+package com.github.wesleybritovlk.healthmanager.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class CommonRingBufferTest {
+
+        @Test
+        void itShouldRoundTheCapacity_ToAPowerOfTwo() {
+                assertThat(new CommonRingBuffer<>(1).capacity()).isEqualTo(2);
+                assertThat(new CommonRingBuffer<>(5).capacity()).isEqualTo(8);
+                assertThat(new CommonRingBuffer<>(8).capacity()).isEqualTo(8);
+        }
+
+        @Test
+        void itShouldKeepTheOrder_AndRefuseWhenFull() {
+                var buffer = new CommonRingBuffer<Integer>(4);
+
+                IntStream.range(0, 4).forEach(i -> assertThat(buffer.offer(i)).isTrue());
+                assertThat(buffer.offer(4)).isFalse();
+                assertThat(buffer.size()).isEqualTo(4);
+
+                var drained = new ArrayList<Integer>();
+                assertThat(buffer.drainTo(drained, 3)).isEqualTo(3);
+                assertThat(buffer.offer(4)).isTrue();
+                buffer.drainTo(drained, 10);
+
+                assertThat(drained).containsExactly(0, 1, 2, 3, 4);
+                assertThat(buffer.poll()).isNull();
+        }
+
+        @Test
+        void itShouldHandOverEveryElementOnce_AcrossProducersAndConsumers() throws Exception {
+                int producers = 4, perProducer = 20_000;
+                var buffer = new CommonRingBuffer<Integer>(64);
+                Set<Integer> consumed = ConcurrentHashMap.newKeySet();
+                ExecutorService executor = Executors.newFixedThreadPool(producers + 2);
+                try {
+                        List<Future<?>> producing = IntStream.range(0, producers)
+                                        .<Future<?>>mapToObj(p -> executor.submit(() -> {
+                                                for (int i = 0; i < perProducer; i++)
+                                                        while (!buffer.offer(p * perProducer + i))
+                                                                Thread.yield();
+                                        })).toList();
+                        List<Future<?>> consuming = IntStream.range(0, 2).<Future<?>>mapToObj(c -> executor.submit(() -> {
+                                while (consumed.size() < producers * perProducer) {
+                                        Integer element = buffer.poll();
+                                        if (element == null)
+                                                Thread.yield();
+                                        else
+                                                assertThat(consumed.add(element)).isTrue();
+                                }
+                        })).toList();
+                        for (Future<?> future : producing)
+                                future.get(30, TimeUnit.SECONDS);
+                        for (Future<?> future : consuming)
+                                future.get(30, TimeUnit.SECONDS);
+                } finally {
+                        executor.shutdownNow();
+                }
+                assertThat(consumed).hasSize(producers * perProducer);
+                assertThat(buffer.size()).isZero();
+        }
+}
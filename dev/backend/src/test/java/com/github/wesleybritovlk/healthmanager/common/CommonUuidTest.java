@@ -0,0 +1,106 @@
+package com.github.wesleybritovlk.healthmanager.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+class CommonUuidTest {
+        /** Database order of uuid columns, unsigned byte by byte */
+        private static final Comparator<UUID> UNSIGNED = Comparator
+                        .<UUID>comparingLong(uuid -> uuid.getMostSignificantBits() ^ Long.MIN_VALUE)
+                        .thenComparingLong(uuid -> uuid.getLeastSignificantBits() ^ Long.MIN_VALUE);
+
+        @Test
+        void itShouldGenerateVersion7Uuids_WithTheCurrentTimestamp() {
+                long before = System.currentTimeMillis();
+                UUID uuid = CommonUuid.Generator.next();
+
+                assertThat(uuid.version()).isEqualTo(7);
+                assertThat(uuid.variant()).isEqualTo(2);
+                assertThat(uuid.getMostSignificantBits() >>> 16).isBetween(before, System.currentTimeMillis() + 1);
+        }
+
+        @Test
+        void itShouldGenerateAscendingUuids_InTheSameMillisecond() {
+                List<UUID> uuids = IntStream.range(0, 10_000).mapToObj(i -> CommonUuid.Generator.next()).toList();
+
+                assertThat(uuids).isSortedAccordingTo(UNSIGNED).doesNotHaveDuplicates();
+        }
+
+        @Test
+        void itShouldGenerateUniqueUuids_AcrossThreads() {
+                Set<UUID> uuids = ConcurrentHashMap.newKeySet();
+
+                IntStream.range(0, 100_000).parallel().forEach(i -> uuids.add(CommonUuid.Generator.next()));
+
+                assertThat(uuids).hasSize(100_000);
+        }
+
+        /**
+         * Batched inserts into a file database, enabled with {@code -Dbenchmark=true}
+         */
+        @Test
+        @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+        void benchmarkInsertThroughput_AgainstRandomUuids(@TempDir Path dir) throws SQLException, IOException {
+                for (int round = 0; round < 3; round++) {
+                        insert(dir, "random" + round, UUID::randomUUID, round == 2);
+                        insert(dir, "v7_" + round, CommonUuid.Generator::next, round == 2);
+                }
+        }
+
+        private static void insert(Path dir, String name, Supplier<UUID> ids, boolean report)
+                        throws SQLException, IOException {
+                int rows = 500_000;
+                String url = "jdbc:h2:file:" + dir.resolve(name).toAbsolutePath();
+                try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+                        connection.setAutoCommit(false);
+                        connection.createStatement().execute(
+                                        "create table customer (id uuid primary key, name varchar(50) not null)");
+                        long start = System.nanoTime();
+                        try (PreparedStatement insert = connection
+                                        .prepareStatement("insert into customer (id, name) values (?, ?)")) {
+                                for (int row = 1; row <= rows; row++) {
+                                        insert.setObject(1, ids.get());
+                                        insert.setString(2, "customer " + row);
+                                        insert.addBatch();
+                                        if (row % 50 == 0)
+                                                insert.executeBatch();
+                                        if (row % 5_000 == 0)
+                                                connection.commit();
+                                }
+                        }
+                        connection.commit();
+                        long elapsed = System.nanoTime() - start;
+                        connection.createStatement().execute("shutdown compact");
+                        if (report)
+                                System.out.printf("%s: %d rows in %d ms, %.0f rows/s, %d bytes on disk%n", name, rows,
+                                                elapsed / 1_000_000, rows * 1e9 / elapsed, size(dir, name));
+                }
+        }
+
+        private static long size(Path dir, String name) throws IOException {
+                long size = 0;
+                try (var files = Files.newDirectoryStream(dir, name + ".*")) {
+                        for (Path file : files)
+                                size += Files.size(file);
+                }
+                return size;
+        }
+}
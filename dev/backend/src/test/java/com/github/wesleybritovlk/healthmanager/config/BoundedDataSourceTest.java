@@ -0,0 +1,226 @@
+package com.github.wesleybritovlk.healthmanager.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.jdbc.DataSourcePoolMetricsAutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+class BoundedDataSourceTest {
+        private DataSource target;
+        private final AtomicInteger open = new AtomicInteger();
+        private final AtomicInteger maxOpen = new AtomicInteger();
+
+        @BeforeEach
+        void setup() throws SQLException {
+                target = mock(DataSource.class);
+                when(target.getConnection()).thenAnswer(invocation -> {
+                        maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+                        Connection connection = mock(Connection.class);
+                        doAnswer(close -> open.decrementAndGet()).when(connection).close();
+                        return connection;
+                });
+        }
+
+        @Test
+        void itShouldCapConcurrentConnections_AtThePermits() throws Exception {
+                var dataSource = new BoundedDataSource(target, 2, Duration.ofSeconds(5));
+                ExecutorService executor = Executors.newFixedThreadPool(8);
+                try {
+                        List<Future<?>> uses = IntStream.range(0, 64)
+                                        .<Future<?>>mapToObj(i -> executor.submit(() -> {
+                                                try (Connection connection = dataSource.getConnection()) {
+                                                        Thread.sleep(1);
+                                                }
+                                                return null;
+                                        })).toList();
+                        for (Future<?> use : uses)
+                                use.get(10, TimeUnit.SECONDS);
+                } finally {
+                        executor.shutdownNow();
+                }
+                assertThat(maxOpen).hasValue(2);
+                assertThat(open).hasValue(0);
+        }
+
+        @Test
+        void itShouldReleaseThePermitOnce_WhenClosedTwice() throws SQLException {
+                var dataSource = new BoundedDataSource(target, 1, Duration.ofMillis(50));
+
+                Connection connection = dataSource.getConnection();
+                connection.close();
+                connection.close();
+                dataSource.getConnection();
+
+                assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        }
+
+        @Test
+        void itShouldReleaseThePermit_WhenThePoolFails() throws SQLException {
+                when(target.getConnection()).thenThrow(new SQLTransientConnectionException("timeout"));
+                var dataSource = new BoundedDataSource(target, 1, Duration.ofMillis(50));
+
+                assertThatThrownBy(dataSource::getConnection).hasMessage("timeout");
+                assertThatThrownBy(dataSource::getConnection).hasMessage("timeout");
+        }
+
+        @Test
+        void itShouldDelegateCalls_ToThePooledConnection() throws SQLException {
+                Connection pooled = mock(Connection.class);
+                Statement statement = mock(Statement.class);
+                when(pooled.createStatement()).thenReturn(statement);
+                when(target.getConnection()).thenReturn(pooled);
+
+                var dataSource = new BoundedDataSource(target, 1, Duration.ofSeconds(1));
+                try (Connection connection = dataSource.getConnection()) {
+                        assertThat(connection.createStatement()).isSameAs(statement);
+                }
+                verify(pooled).close();
+        }
+
+        @Test
+        void itShouldKeepThePoolBean_AndItsMetrics() {
+                new ApplicationContextRunner()
+                                .withInitializer(context -> context.getBeanFactory()
+                                                .setConversionService(ApplicationConversionService.getSharedInstance()))
+                                .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class,
+                                                MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class,
+                                                DataSourcePoolMetricsAutoConfiguration.class))
+                                .withUserConfiguration(BoundedDataSourceConfig.class)
+                                .withPropertyValues("spring.datasource.url=jdbc:h2:mem:bounded",
+                                                "spring.datasource.hikari.maximum-pool-size=7")
+                                .run(context -> {
+                                        HikariDataSource hikari = context.getBean(HikariDataSource.class);
+                                        DataSource dataSource = context.getBean(DataSource.class);
+                                        try (Connection connection = dataSource.getConnection()) {
+                                                assertThat(connection.isValid(1)).isTrue();
+                                        }
+
+                                        assertThat(dataSource).isInstanceOf(BoundedDataSource.class);
+                                        assertThat(dataSource.unwrap(HikariDataSource.class)).isSameAs(hikari);
+                                        MeterRegistry registry = context.getBean(MeterRegistry.class);
+                                        assertThat(registry.get("hikaricp.connections.max").gauge().value())
+                                                        .isEqualTo(7);
+                                        assertThat(registry.get("datasource.permits.waiting").gauge().value())
+                                                        .isZero();
+                                });
+        }
+
+        /**
+         * Bursts of requests where one in five runs a 20 ms query on a pool of
+         * 10 connections with its default connection timeout, as in the app, and
+         * the others are served from memory, on the 200 platform threads of
+         * Tomcat and on virtual threads with and without the permits, enabled
+         * with {@code -Dbenchmark=true}, the virtual thread modes need Java 21
+         */
+        @Test
+        @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+        void benchmarkThroughput_AgainstPlatformThreads() throws Exception {
+                try (var hikari = new HikariDataSource()) {
+                        hikari.setJdbcUrl("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+                        hikari.setMaximumPoolSize(10);
+                        hikari.setMinimumIdle(10);
+                        try (Connection connection = hikari.getConnection()) {
+                                connection.createStatement().execute(
+                                                "create alias if not exists sleep for \"java.lang.Thread.sleep(long)\"");
+                        }
+                        var bounded = new BoundedDataSource(hikari, 10, Duration.ofSeconds(30));
+                        for (int round = 0; round < 3; round++) {
+                                boolean report = round == 2;
+                                run("platform", Executors.newFixedThreadPool(200), hikari, report);
+                                ExecutorService virtual = virtualThreads();
+                                if (virtual == null)
+                                        continue;
+                                run("virtual", virtual, hikari, report);
+                                run("virtual+permits", virtualThreads(), bounded, report);
+                        }
+                        Assumptions.assumeTrue(virtualThreads() != null, "Virtual threads need Java 21");
+                }
+        }
+
+        private static ExecutorService virtualThreads() {
+                try {
+                        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                                        .invoke(null);
+                } catch (ReflectiveOperationException e) {
+                        return null;
+                }
+        }
+
+        private static void run(String mode, ExecutorService executor, DataSource dataSource, boolean report)
+                        throws Exception {
+                int requests = 5_000;
+                var failures = new AtomicInteger();
+                var memoryLatencies = new ArrayList<Long>();
+                long start = System.nanoTime();
+                List<Future<Long>> latencies = new ArrayList<>(requests);
+                try {
+                        for (int i = 0; i < requests; i++) {
+                                boolean query = i % 5 == 0;
+                                long submitted = System.nanoTime();
+                                latencies.add(executor.submit(() -> {
+                                        if (query) {
+                                                try (Connection connection = dataSource.getConnection()) {
+                                                        connection.createStatement().execute("call sleep(20)");
+                                                } catch (SQLException e) {
+                                                        failures.incrementAndGet();
+                                                }
+                                                return -1L;
+                                        }
+                                        return System.nanoTime() - submitted;
+                                }));
+                        }
+                        for (Future<Long> latency : latencies) {
+                                long nanos = latency.get();
+                                if (nanos >= 0)
+                                        memoryLatencies.add(nanos);
+                        }
+                } finally {
+                        executor.shutdown();
+                }
+                long elapsed = System.nanoTime() - start;
+                long[] sorted = memoryLatencies.stream().mapToLong(Long::longValue).sorted().toArray();
+                if (report)
+                        System.out.printf("%s: %d requests in %d ms, %.0f req/s, %d failed queries, "
+                                        + "in-memory p50 %.1f ms p99 %.1f ms%n", mode, requests, elapsed / 1_000_000,
+                                        requests * 1e9 / elapsed, failures.get(), percentile(sorted, 0.50) / 1e6,
+                                        percentile(sorted, 0.99) / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double rank) {
+                return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, rank * sorted.length)];
+        }
+}
@@ -0,0 +1,59 @@
+package com.github.wesleybritovlk.healthmanager.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import com.github.wesleybritovlk.healthmanager.config.CacheConfig.CacheProperties;
+import com.github.wesleybritovlk.healthmanager.config.CacheConfig.CacheProperties.Spec;
+
+class CacheConfigTest {
+        private CacheManager cacheManager;
+        private CacheStatsEndpoint endpoint;
+
+        @BeforeEach
+        void setup() {
+                cacheManager = new CacheConfig().cacheManager(new CacheProperties(Map.of(
+                                "customers", new Spec(10, Duration.ofMinutes(1)),
+                                "customer", new Spec(100, Duration.ofMinutes(10)))));
+                endpoint = new CacheStatsEndpoint(cacheManager);
+        }
+
+        @Test
+        void itShouldBoundEachCache_ToItsMaximumSize() {
+                Cache customers = cacheManager.getCache("customers");
+                IntStream.range(0, 1_000).forEach(page -> customers.put(page, "page " + page));
+                ((CaffeineCache) customers).getNativeCache().cleanUp();
+
+                assertThat(endpoint.cache("customers").size()).isEqualTo(10);
+                assertThat(endpoint.cache("customers").evictions()).isEqualTo(990);
+        }
+
+        @Test
+        void itShouldRecordHitsAndMisses() {
+                Cache customer = cacheManager.getCache("customer");
+                customer.put("foo", "bar");
+
+                customer.get("foo");
+                customer.get("foo");
+                customer.get("baz");
+
+                assertThat(endpoint.cache("customer")).extracting(CacheStatsEndpoint.Stats::hits,
+                                CacheStatsEndpoint.Stats::misses).containsExactly(2L, 1L);
+                assertThat(endpoint.caches()).containsOnlyKeys("customer", "customers");
+        }
+
+        @Test
+        void itShouldOnlyServeConfiguredCaches() {
+                assertThat(cacheManager.getCache("unknown")).isNull();
+                assertThat(endpoint.cache("unknown")).isNull();
+        }
+}
@@ -0,0 +1,82 @@
+package com.github.wesleybritovlk.healthmanager.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerDTO.RiskResponse;
+import com.github.wesleybritovlk.healthmanager.app.customer.CustomerService;
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblemService;
+import com.github.wesleybritovlk.healthmanager.config.WarmupRunner.WarmupProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WarmupRunnerTest {
+        private WarmupRunner runner;
+        private CustomerService customerService;
+        private HealthProblemService healthProblemService;
+        private MeterRegistry meterRegistry;
+        private final UUID riskiest = UUID.randomUUID();
+
+        @BeforeEach
+        void setup() {
+                customerService = mock(CustomerService.class);
+                healthProblemService = mock(HealthProblemService.class);
+                meterRegistry = new SimpleMeterRegistry();
+                runner = new WarmupRunner(new WarmupProperties(true, 5, 3, 10, 2), customerService,
+                                healthProblemService, JsonMapper.builder().findAndAddModules().build(),
+                                meterRegistry, new GenericApplicationContext());
+                when(customerService.findTopRisk(2))
+                                .thenReturn(List.of(new RiskResponse(riskiest, "Foo", BigDecimal.TEN)));
+                when(customerService.findAll(any())).thenReturn(new PageImpl<>(List.of(), PageRequest.of(0, 10), 0));
+                when(healthProblemService.findAll(any())).thenReturn(new PageImpl<>(List.of(), PageRequest.of(0, 10), 0));
+        }
+
+        @Test
+        void itShouldExerciseTheReadPaths_ForEachIteration() {
+                runner.run(null);
+
+                verify(customerService, times(5)).findAll(PageRequest.of(0, 10));
+                verify(healthProblemService, times(5)).findAll(PageRequest.of(0, 10));
+                verify(customerService, times(5)).findById(riskiest);
+                assertThat(meterRegistry.get("app.warmup").tag("outcome", "success").timer().count()).isEqualTo(1);
+        }
+
+        @Test
+        void itShouldRecordTheFailure_WithoutFailingTheStartup() {
+                when(customerService.findById(riskiest)).thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND));
+
+                runner.run(null);
+
+                verify(healthProblemService, times(1)).findAll(any());
+                assertThat(meterRegistry.get("app.warmup").tag("outcome", "failure").timer().count()).isEqualTo(1);
+        }
+
+        @Test
+        void itShouldSkipTheCustomerLoad_WhenNoCustomerIsRanked() {
+                when(customerService.findTopRisk(2)).thenReturn(List.of());
+
+                runner.run(null);
+
+                verify(customerService, never()).findById(any());
+                verify(customerService, times(5)).findAll(any());
+        }
+}
@@ -0,0 +1,53 @@
+package com.github.wesleybritovlk.healthmanager.handler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+@DataJpaTest
+class GlobalHandlerEndpointTest {
+        private final GlobalHandlerRollupRepository repository;
+        private GlobalHandlerEndpoint endpoint;
+
+        @Autowired
+        public GlobalHandlerEndpointTest(GlobalHandlerRollupRepository repository) {
+                this.repository = repository;
+        }
+
+        private GlobalHandlerRollup rollup(String path, long count, ZonedDateTime firstSeen, ZonedDateTime lastSeen) {
+                return GlobalHandlerRollup.builder().status(404).error("Not Found").message("Customer not found")
+                                .requestPath(path).count(count).firstSeen(firstSeen).lastSeen(lastSeen).build();
+        }
+
+        @BeforeEach
+        void setup() {
+                endpoint = new GlobalHandlerEndpoint(repository);
+                ZonedDateTime now = ZonedDateTime.now();
+                repository.save(rollup("/api/customers/{id}", 600, now.minusMinutes(10), now.minusMinutes(9)));
+                repository.save(rollup("/api/customers/{id}", 300, now.minusMinutes(5), now.minusMinutes(4)));
+                repository.save(rollup("/api/customers/{id}", 50, now.minusHours(3), now.minusHours(3)));
+                repository.save(rollup("/api/health-problems/{id}", 30, now.minusMinutes(2), now.minusMinutes(1)));
+        }
+
+        @Test
+        void itShouldSumTheRollups_OfTheWindow() {
+                var totals = endpoint.rollup(Duration.ofMinutes(15));
+
+                assertThat(totals).extracting(GlobalHandlerDTO.Rollup::request_path, GlobalHandlerDTO.Rollup::count)
+                                .containsExactly(tuple("/api/customers/{id}", 900L),
+                                                tuple("/api/health-problems/{id}", 30L));
+                assertThat(totals.get(0).per_minute()).isEqualTo(60.0);
+        }
+
+        @Test
+        void itShouldDefaultToTheLastHour() {
+                assertThat(endpoint.rollup(null)).hasSize(2);
+        }
+}
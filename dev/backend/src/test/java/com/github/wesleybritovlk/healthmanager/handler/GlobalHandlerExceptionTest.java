@@ -0,0 +1,60 @@
+package com.github.wesleybritovlk.healthmanager.handler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.sql.SQLException;
+import java.util.Locale;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.github.wesleybritovlk.healthmanager.app.healthproblem.HealthProblem;
+
+class GlobalHandlerExceptionTest {
+        private GlobalHandlerException handler;
+        private GlobalHandlerService service;
+        private final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/health-problems");
+
+        @BeforeEach
+        void setup() {
+                service = mock(GlobalHandlerService.class);
+                handler = new GlobalHandlerExceptionImpl(service);
+        }
+
+        private static DataIntegrityViolationException violation(String constraint) {
+                return new DataIntegrityViolationException("could not execute statement",
+                                new ConstraintViolationException("could not execute statement",
+                                                new SQLException(), constraint));
+        }
+
+        @Test
+        void itShouldAnswerConflict_ForAKnownUniqueConstraint() {
+                var response = handler.handleDataIntegrityViolationException(
+                                violation("PUBLIC." + HealthProblem.HP_NAME_UK.toUpperCase(Locale.ROOT) + "_INDEX_1"), request);
+
+                assertThat(response.getStatusCode().value()).isEqualTo(409);
+                assertThat(response.getBody().message())
+                                .isEqualTo("This Health Problem already exists in this Customer");
+                verify(service).create(any());
+        }
+
+        @Test
+        void itShouldAnswerServerError_ForAnyOtherViolation() {
+                var response = handler.handleDataIntegrityViolationException(
+                                violation("FK_HEALTH_PROBLEM_CUSTOMER"), request);
+
+                assertThat(response.getStatusCode().value()).isEqualTo(500);
+                assertThat(response.getBody().message()).isEqualTo("could not execute statement");
+                assertThat(handler.handleDataIntegrityViolationException(
+                                new DataIntegrityViolationException("Value too long"), request).getStatusCode().value())
+                                .isEqualTo(500);
+                verify(service, times(2)).create(any());
+        }
+}
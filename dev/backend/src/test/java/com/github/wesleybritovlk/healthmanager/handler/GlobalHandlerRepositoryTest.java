@@ -0,0 +1,93 @@
+package com.github.wesleybritovlk.healthmanager.handler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import com.github.wesleybritovlk.healthmanager.handler.GlobalHandlerService.LogProperties;
+import com.github.wesleybritovlk.healthmanager.handler.GlobalHandlerService.Mode;
+import com.github.wesleybritovlk.healthmanager.handler.GlobalHandlerService.Overflow;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+class GlobalHandlerRepositoryTest {
+        private final GlobalHandlerRepository repository;
+        private final GlobalHandlerRollupRepository rollupRepository;
+        private final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+
+        @Autowired
+        public GlobalHandlerRepositoryTest(GlobalHandlerRepository repository,
+                        GlobalHandlerRollupRepository rollupRepository) {
+                this.repository = repository;
+                this.rollupRepository = rollupRepository;
+        }
+
+        private void error(int daysAgo) {
+                ZonedDateTime createdAt = now.minusDays(daysAgo);
+                repository.save(GlobalHandler.builder().createdAt(createdAt).bucket(createdAt.toLocalDate())
+                                .status(404).error("Not Found").message("Customer not found")
+                                .requestPath("/api/customers").build());
+        }
+
+        private void rollup(int daysAgo) {
+                ZonedDateTime seen = now.minusDays(daysAgo);
+                rollupRepository.save(GlobalHandlerRollup.builder().status(404).error("Not Found")
+                                .message("Customer not found").requestPath("/api/customers/{id}").count(1L)
+                                .firstSeen(seen).lastSeen(seen).build());
+        }
+
+        @BeforeEach
+        void setup() {
+                error(0);
+                error(29);
+                error(31);
+                error(31);
+                error(45);
+                rollup(1);
+                rollup(40);
+        }
+
+        @Test
+        void itShouldFindTheBuckets_BeforeTheCutoff() {
+                assertThat(repository.findAllBucketsBefore(now.minusDays(30).toLocalDate()))
+                                .containsExactly(now.minusDays(45).toLocalDate(), now.minusDays(31).toLocalDate());
+        }
+
+        @Test
+        void itShouldFindTheIdsOfABucket_UpToTheLimit() {
+                assertThat(repository.findAllIdsByBucket(now.minusDays(31).toLocalDate(), Limit.of(1))).hasSize(1);
+                assertThat(repository.findAllIdsByBucket(now.minusDays(31).toLocalDate(), Limit.of(10))).hasSize(2);
+        }
+
+        @Test
+        void itShouldFindTheRollupIdsLastSeenBefore_UpToTheLimit() {
+                rollup(50);
+
+                assertThat(rollupRepository.findAllIdsLastSeenBefore(now.minusDays(30), Limit.of(1))).hasSize(1);
+                assertThat(rollupRepository.findAllIdsLastSeenBefore(now.minusDays(30), Limit.of(10))).hasSize(2);
+        }
+
+        @Test
+        void itShouldPurgeWholeExpiredBuckets() {
+                var registry = new SimpleMeterRegistry();
+                var service = new GlobalHandlerServiceImpl(repository, rollupRepository, new LogProperties(Mode.RAW, 16,
+                                50, Duration.ofHours(1), Duration.ofHours(1), Overflow.DROP, Duration.ofDays(30)),
+                                registry);
+
+                service.purgeExpired();
+
+                assertThat(repository.findAll()).extracting(GlobalHandler::getBucket)
+                                .containsExactlyInAnyOrder(now.toLocalDate(), now.minusDays(29).toLocalDate());
+                assertThat(rollupRepository.count()).isEqualTo(1);
+                assertThat(registry.counter("handler.exception.log", "result", "purged").count()).isEqualTo(3);
+        }
+}
@@ -0,0 +1,230 @@
+package com.github.wesleybritovlk.healthmanager.handler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.wesleybritovlk.healthmanager.handler.GlobalHandlerService.LogProperties;
+import com.github.wesleybritovlk.healthmanager.handler.GlobalHandlerService.Mode;
+import com.github.wesleybritovlk.healthmanager.handler.GlobalHandlerService.Overflow;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GlobalHandlerServiceTest {
+        private GlobalHandlerRepository repository;
+        private GlobalHandlerRollupRepository rollupRepository;
+        private MeterRegistry meterRegistry;
+        private final List<GlobalHandler> saved = Collections.synchronizedList(new ArrayList<>());
+        private final List<GlobalHandlerRollup> rolledUp = Collections.synchronizedList(new ArrayList<>());
+
+        @BeforeEach
+        void setup() {
+                repository = mock(GlobalHandlerRepository.class);
+                rollupRepository = mock(GlobalHandlerRollupRepository.class);
+                meterRegistry = new SimpleMeterRegistry();
+                when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+                        saved.addAll(invocation.getArgument(0));
+                        return invocation.getArgument(0);
+                });
+                when(rollupRepository.saveAll(anyList())).thenAnswer(invocation -> {
+                        rolledUp.addAll(invocation.getArgument(0));
+                        return invocation.getArgument(0);
+                });
+        }
+
+        private GlobalHandlerServiceImpl service(int capacity, Overflow overflow) {
+                return service(Mode.RAW, capacity, overflow);
+        }
+
+        private GlobalHandlerServiceImpl service(Mode mode, int capacity, Overflow overflow) {
+                return new GlobalHandlerServiceImpl(repository, rollupRepository, new LogProperties(mode, capacity,
+                                50, Duration.ofHours(1), Duration.ofHours(1), overflow, Duration.ofDays(30)),
+                                meterRegistry);
+        }
+
+        private static GlobalHandlerDTO dto(int i) {
+                return new GlobalHandlerDTO(ZonedDateTime.now(), 404, "Not Found", "error " + i, "/api/customers");
+        }
+
+        private static GlobalHandlerDTO notFound(ZonedDateTime timestamp, String path) {
+                return new GlobalHandlerDTO(timestamp, 404, "Not Found", "Customer not found", path);
+        }
+
+        private double count(String result) {
+                return meterRegistry.counter("handler.exception.log", "result", result).count();
+        }
+
+        @Test
+        void itShouldWriteInBatches_OnceABatchIsPending() {
+                var service = service(1024, Overflow.DROP);
+                IntStream.range(0, 100).forEach(i -> service.create(dto(i)));
+
+                service.start();
+
+                verify(repository, timeout(5_000).times(2)).saveAll(anyList());
+                assertThat(saved).hasSize(100).extracting(GlobalHandler::getMessage).startsWith("error 0");
+        }
+
+        @Test
+        void itShouldDropErrors_WhenTheBufferIsFull() throws InterruptedException {
+                var service = service(4, Overflow.DROP);
+
+                IntStream.range(0, 10).forEach(i -> service.create(dto(i)));
+                service.stop();
+
+                assertThat(saved).extracting(GlobalHandler::getMessage)
+                                .containsExactly("error 0", "error 1", "error 2", "error 3");
+                assertThat(count("dropped")).isEqualTo(6);
+                assertThat(count("written")).isEqualTo(4);
+        }
+
+        @Test
+        void itShouldWaitForRoom_WhenBlocking() throws InterruptedException {
+                var service = service(4, Overflow.BLOCK);
+                service.start();
+
+                IntStream.range(0, 200).forEach(i -> service.create(dto(i)));
+                service.stop();
+
+                assertThat(saved).hasSize(200);
+                assertThat(count("dropped")).isZero();
+        }
+
+        @Test
+        void itShouldFlushPendingErrors_OnShutdown() throws InterruptedException {
+                var service = service(1024, Overflow.DROP);
+                service.start();
+
+                IntStream.range(0, 10).forEach(i -> service.create(dto(i)));
+                service.stop();
+
+                assertThat(saved).hasSize(10);
+        }
+
+        @Test
+        void itShouldCountFailedBatches() throws InterruptedException {
+                when(repository.saveAll(anyList())).thenThrow(new IllegalStateException());
+                when(repository.save(any())).thenThrow(new IllegalStateException());
+                var service = service(1024, Overflow.DROP);
+
+                IntStream.range(0, 3).forEach(i -> service.create(dto(i)));
+                service.stop();
+
+                assertThat(count("failed")).isEqualTo(3);
+        }
+
+        @Test
+        void itShouldRetryAFailedBatch_OneRowAtATime() throws InterruptedException {
+                when(repository.saveAll(anyList())).thenThrow(new IllegalStateException());
+                when(repository.save(any())).thenAnswer(invocation -> {
+                        GlobalHandler handler = invocation.getArgument(0);
+                        if (handler.getMessage().equals("error 1"))
+                                throw new IllegalStateException();
+                        saved.add(handler);
+                        return handler;
+                });
+                var service = service(1024, Overflow.DROP);
+
+                IntStream.range(0, 3).forEach(i -> service.create(dto(i)));
+                service.stop();
+
+                assertThat(saved).extracting(GlobalHandler::getMessage).containsExactly("error 0", "error 2");
+                assertThat(count("written")).isEqualTo(2);
+                assertThat(count("failed")).isEqualTo(1);
+        }
+
+        @Test
+        void itShouldCutTexts_ToTheColumnLength() throws InterruptedException {
+                var service = service(1024, Overflow.DROP);
+
+                service.create(new GlobalHandlerDTO(ZonedDateTime.now(), 400, "Bad Request", "x".repeat(1_000),
+                                null));
+                service.stop();
+
+                assertThat(saved).singleElement().satisfies(handler -> {
+                        assertThat(handler.getMessage()).hasSize(GlobalHandler.TEXT_LENGTH);
+                        assertThat(handler.getRequestPath()).isEqualTo("null");
+                });
+        }
+
+        @Test
+        void itShouldReplaceIds_InTheRequestPath() {
+                assertThat(GlobalHandlerServiceImpl
+                                .normalize("/api/customers/0190a4c2-7f3e-7a11-8b2c-3d4e5f607182/health-problems/12"))
+                                .isEqualTo("/api/customers/{id}/health-problems/{id}");
+                assertThat(GlobalHandlerServiceImpl.normalize("/api/customers/top-risk"))
+                                .isEqualTo("/api/customers/top-risk");
+        }
+
+        @Test
+        void itShouldRollUpIdenticalErrors_IntoOneRowPerKey() throws InterruptedException {
+                var service = service(Mode.AGGREGATE, 1024, Overflow.DROP);
+                ZonedDateTime first = ZonedDateTime.now().minusMinutes(1), last = ZonedDateTime.now();
+
+                service.create(notFound(last, "/api/customers/" + UUID.randomUUID()));
+                service.create(notFound(first, "/api/customers/" + UUID.randomUUID()));
+                IntStream.range(0, 98).forEach(
+                                i -> service.create(notFound(first.plusSeconds(1), "/api/customers/" + i)));
+                service.create(notFound(last, "/api/health-problems/" + UUID.randomUUID()));
+                service.stop();
+
+                assertThat(saved).isEmpty();
+                assertThat(rolledUp).extracting(GlobalHandlerRollup::getRequestPath, GlobalHandlerRollup::getCount)
+                                .containsExactlyInAnyOrder(tuple("/api/customers/{id}", 100L),
+                                                tuple("/api/health-problems/{id}", 1L));
+                assertThat(rolledUp).filteredOn(rollup -> rollup.getCount() == 100L).singleElement()
+                                .extracting(GlobalHandlerRollup::getFirstSeen, GlobalHandlerRollup::getLastSeen)
+                                .containsExactly(first, last);
+                assertThat(count("rolled-up")).isEqualTo(2);
+        }
+
+        @Test
+        void itShouldKeepTheTallies_WhenARollupFails() throws InterruptedException {
+                when(rollupRepository.saveAll(anyList())).thenThrow(new IllegalStateException())
+                                .thenAnswer(invocation -> {
+                                        rolledUp.addAll(invocation.getArgument(0));
+                                        return invocation.getArgument(0);
+                                });
+                var service = new GlobalHandlerServiceImpl(repository, rollupRepository, new LogProperties(
+                                Mode.AGGREGATE, 1024, 50, Duration.ofMillis(10), Duration.ofMillis(10),
+                                Overflow.DROP, Duration.ofDays(30)), meterRegistry);
+                service.create(notFound(ZonedDateTime.now(), "/api/customers/1"));
+                service.start();
+
+                verify(rollupRepository, timeout(5_000).times(2)).saveAll(anyList());
+                service.create(notFound(ZonedDateTime.now(), "/api/customers/2"));
+                service.stop();
+
+                assertThat(rolledUp).extracting(GlobalHandlerRollup::getCount).containsExactly(1L, 1L);
+                assertThat(count("failed")).isZero();
+        }
+
+        @Test
+        void itShouldCutTheRollupKey_ToTheColumnLength() throws InterruptedException {
+                var service = service(Mode.AGGREGATE, 1024, Overflow.DROP);
+
+                service.create(new GlobalHandlerDTO(ZonedDateTime.now(), 500, "Internal Server Error",
+                                "x".repeat(1_000), "/api/customers"));
+                service.stop();
+
+                assertThat(rolledUp).singleElement().extracting(GlobalHandlerRollup::getMessage)
+                                .asString().hasSize(GlobalHandler.TEXT_LENGTH);
+        }
+}